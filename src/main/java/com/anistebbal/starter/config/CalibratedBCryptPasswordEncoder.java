@@ -0,0 +1,82 @@
+package com.anistebbal.starter.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt encoder whose cost is chosen at startup from a target time per hash.
+ *
+ * BCrypt already stores the cost inside every hash ("$2a$12$..."), so hashes of
+ * different costs verify side by side. {@link #upgradeEncoding(String)} reports
+ * any hash below the current cost, letting login re-hash it. Hashes above it
+ * are left alone, so a node that calibrated lower never weakens them and
+ * nodes that calibrated differently do not re-hash the same password back
+ * and forth.
+ */
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Logger log = LoggerFactory.getLogger(CalibratedBCryptPasswordEncoder.class);
+
+    private static final String CALIBRATION_SAMPLE = "calibration-sample-password";
+
+    private final int strength;
+
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int cost = costOf(encodedPassword);
+        return cost > 0 && cost < strength;
+    }
+
+    /**
+     * Picks the highest cost in [minCost, maxCost] whose measured hash time
+     * stays within the target. Each extra cost step doubles the work, so the
+     * search stops as soon as the next step would overshoot.
+     */
+    public static CalibratedBCryptPasswordEncoder calibrate(long targetMillis, int minCost, int maxCost) {
+        new BCryptPasswordEncoder(minCost).encode(CALIBRATION_SAMPLE); // warm-up
+
+        int cost = minCost;
+        long elapsed = timeHash(cost);
+        while (cost < maxCost && elapsed * 2 <= targetMillis) {
+            cost++;
+            elapsed = timeHash(cost);
+        }
+
+        log.info("BCrypt cost calibrated to {} ({} ms per hash, target {} ms)", cost, elapsed, targetMillis);
+        return new CalibratedBCryptPasswordEncoder(cost);
+    }
+
+    // Reads the cost from "$2a$NN$..."; returns -1 if the hash is not BCrypt
+    static int costOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return -1;
+        }
+        int costStart = encodedPassword.indexOf('$', 1) + 1;
+        if (costStart <= 0 || costStart + 2 >= encodedPassword.length()
+                || encodedPassword.charAt(costStart + 2) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(costStart, costStart + 2));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long timeHash(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        long start = System.nanoTime();
+        encoder.encode(CALIBRATION_SAMPLE);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -2,11 +2,15 @@ package com.anistebbal.starter.config;
 
 import com.anistebbal.starter.services.JWTService;
 import com.anistebbal.starter.services.MyUserDetailsService;
+import com.anistebbal.starter.services.SecurityVersionRegistry;
+import com.anistebbal.starter.services.TokenRevocationService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -30,6 +34,16 @@ public class JwtFilter extends OncePerRequestFilter {
     @Autowired
     private MyUserDetailsService userDetailsService;
 
+    @Autowired
+    private SecurityVersionRegistry securityVersions;
+
+    @Autowired
+    private TokenRevocationService tokenRevocations;
+
+    // When enabled, the principal is built from token claims instead of a DB lookup
+    @Value("${security.jwt.claims-principal:true}")
+    private boolean claimsPrincipal;
+
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
             @NonNull HttpServletResponse response,
@@ -54,20 +68,29 @@ public class JwtFilter extends OncePerRequestFilter {
         }
 
         String token = authHeader.substring(7);
-        String phone = null;
+        Claims claims;
 
+        // Signature and expiry are checked once here; the claims are reused below
         try {
-            phone = jwtService.extractPhone(token);
-            log.info(" Extracted phone from token: {}", phone);
+            claims = jwtService.verify(token);
         } catch (Exception e) {
-            log.error(" Failed to extract phone from JWT: {}", e.getMessage());
+            log.error(" Failed to verify JWT: {}", e.getMessage());
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (tokenRevocations.isRevoked(claims.getId())) {
+            log.warn(" JWT {} has been revoked", claims.getId());
             filterChain.doFilter(request, response);
             return;
         }
 
+        String phone = claims.getSubject();
+        log.info(" Extracted phone from token: {}", phone);
+
         if (phone != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(phone);
-            if (jwtService.validateToken(token, userDetails)) {
+            UserDetails userDetails = resolvePrincipal(phone, claims);
+            if (userDetails != null && jwtService.validateToken(claims, userDetails)) {
                 log.info(" JWT is valid. Authenticating user: {}", phone);
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
@@ -84,4 +107,26 @@ public class JwtFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails resolvePrincipal(String phone, Claims claims) {
+        if (claimsPrincipal) {
+            Long userId = claims.get("id", Long.class);
+            Integer version = claims.get("sv", Integer.class);
+
+            // Tokens issued before the "sv" claim existed still go through the DB
+            if (userId != null && version != null) {
+                if (!securityVersions.isCurrent(userId, version)) {
+                    log.warn(" JWT security version {} is stale for user: {}", version, phone);
+                    return null;
+                }
+                return UserPrincipal.fromClaims(
+                        userId,
+                        claims.get("username", String.class),
+                        phone,
+                        claims.get("role", String.class),
+                        claims.get("streetId", Long.class));
+            }
+        }
+        return userDetailsService.loadUserByUsername(phone);
+    }
 }
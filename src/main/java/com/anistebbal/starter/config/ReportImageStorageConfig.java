@@ -0,0 +1,64 @@
+package com.anistebbal.starter.config;
+
+import com.anistebbal.starter.services.LocalImageStorage;
+import com.anistebbal.starter.services.ReportImageStorage;
+import com.anistebbal.starter.services.S3ImageStorage;
+import com.anistebbal.starter.util.UrlSigner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+@Configuration
+public class ReportImageStorageConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportImageStorageConfig.class);
+
+    // reports.images.storage=s3; without access keys the SDK's default chain (env, profile, instance role) is used
+    @Bean
+    @ConditionalOnProperty(name = "reports.images.storage", havingValue = "s3")
+    public ReportImageStorage s3ImageStorage(
+            @Value("${reports.images.s3.bucket}") String bucket,
+            @Value("${reports.images.s3.region:us-east-1}") String region,
+            @Value("${reports.images.s3.endpoint:}") String endpoint,
+            @Value("${reports.images.s3.path-style:false}") boolean pathStyle,
+            @Value("${reports.images.s3.access-key:}") String accessKey,
+            @Value("${reports.images.s3.secret-key:}") String secretKey) {
+        AwsCredentialsProvider credentials = accessKey.isBlank()
+                ? DefaultCredentialsProvider.create()
+                : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        log.info("Report images are stored in bucket {}", bucket);
+        return S3ImageStorage.create(endpoint, region, pathStyle, credentials, bucket);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(ReportImageStorage.class)
+    public ReportImageStorage localImageStorage(
+            @Value("${reports.images.dir:${user.dir}/uploads/reports}") String directory,
+            UrlSigner imageUrlSigner) {
+        return new LocalImageStorage(Paths.get(directory), imageUrlSigner);
+    }
+
+    // Base64, like jwt.secret; nodes behind one load balancer need the same one
+    @Bean
+    public UrlSigner imageUrlSigner(@Value("${reports.images.url-secret:}") String secret) {
+        if (secret.isBlank()) {
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            log.warn("reports.images.url-secret is not set; signed image URLs will not survive a restart");
+            return new UrlSigner(random);
+        }
+        return new UrlSigner(Base64.getDecoder().decode(secret));
+    }
+}
@@ -0,0 +1,41 @@
+package com.anistebbal.starter.config;
+
+import com.anistebbal.starter.entities.Report;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps report_seq ahead of the ids already in the report table.
+ *
+ * Report ids used to come from an IDENTITY column; a sequence created next to
+ * existing rows would start at 1 and hand out taken ids. Runs before the web
+ * server accepts requests. Taking one value to compare is harmless: with the
+ * pooled optimizer it only skips one block of ids.
+ */
+@Component
+@DependsOn("entityManagerFactory") // schema generation must have run
+public class ReportSequenceGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportSequenceGuard.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void ensureSequenceAheadOfTable() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM report", Long.class);
+        Long next = jdbcTemplate.queryForObject("SELECT nextval('report_seq')", Long.class);
+
+        // Hibernate hands out (next - ALLOCATION_SIZE, next], so the whole block must lie above maxId
+        if (maxId != null && next != null && next - Report.ALLOCATION_SIZE < maxId) {
+            long restart = maxId + Report.ALLOCATION_SIZE + 1;
+            jdbcTemplate.execute("ALTER SEQUENCE report_seq RESTART WITH " + restart);
+            log.warn("report_seq was behind the report table (max id {}); restarted at {}", maxId, restart);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.anistebbal.starter.config;
 
+import com.anistebbal.starter.services.LocalImageStorage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -12,7 +14,7 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -32,9 +34,9 @@ public class SecurityConfig {
         return http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/api/users/login", "/api/users/register", "/swagger-ui/**",
+                        .requestMatchers("/api/users/login", "/api/users/register", "/api/auth/login", "/swagger-ui/**",
                                 "/v3/api-docs/**",
-                                "/swagger-ui.html")
+                                "/swagger-ui.html", LocalImageStorage.SIGNED_PATH)
                         .permitAll()
                         .anyRequest().authenticated())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -42,10 +44,24 @@ public class SecurityConfig {
                 .build();
     }
 
+    // A fixed cost (> 0) skips calibration; otherwise the cost is measured at startup.
+    // Pin it when running several nodes, or each hashes new passwords at its own cost
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public PasswordEncoder passwordEncoder(
+            @Value("${security.password.cost:0}") int fixedCost,
+            @Value("${security.password.target-hash-millis:250}") long targetHashMillis,
+            @Value("${security.password.min-cost:10}") int minCost,
+            @Value("${security.password.max-cost:14}") int maxCost) {
+        if (fixedCost > 0) {
+            return new CalibratedBCryptPasswordEncoder(fixedCost);
+        }
+        return CalibratedBCryptPasswordEncoder.calibrate(targetHashMillis, minCost, maxCost);
+    }
+
+    @Bean
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
-        provider.setPasswordEncoder(new BCryptPasswordEncoder(12));
+        provider.setPasswordEncoder(passwordEncoder);
         provider.setUserDetailsService(userDetailsService);
         return provider;
     }
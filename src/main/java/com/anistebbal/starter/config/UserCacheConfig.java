@@ -0,0 +1,18 @@
+package com.anistebbal.starter.config;
+
+import com.anistebbal.starter.services.InJvmUserInvalidationBus;
+import com.anistebbal.starter.services.UserInvalidationBus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class UserCacheConfig {
+
+    // Replaced by declaring another UserInvalidationBus bean (e.g. for multi-node setups)
+    @Bean
+    @ConditionalOnMissingBean(UserInvalidationBus.class)
+    public UserInvalidationBus userInvalidationBus() {
+        return new InJvmUserInvalidationBus();
+    }
+}
@@ -1,5 +1,6 @@
 package com.anistebbal.starter.config;
 
+import com.anistebbal.starter.entities.Street;
 import com.anistebbal.starter.entities.User;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -16,10 +17,26 @@ public class UserPrincipal implements UserDetails {
         this.user = user;
     }
 
+    // Builds a principal from verified token claims without touching the database
+    public static UserPrincipal fromClaims(Long id, String username, String phone, String role, Long streetId) {
+        User user = User.builder()
+                .id(id)
+                .username(username)
+                .phone(phone)
+                .role(role)
+                .street(streetId != null ? Street.builder().id(streetId).build() : null)
+                .build();
+        return new UserPrincipal(user);
+    }
+
     public Long getId() {
         return user.getId();
     }
 
+    public Long getStreetId() {
+        return user.getStreet() != null ? user.getStreet().getId() : null;
+    }
+
     public String getPhoneNumber() {
         return user.getPhone();
     }
@@ -4,7 +4,11 @@ import com.anistebbal.starter.dto.LoginRequestDTO;
 import com.anistebbal.starter.dto.LoginResponseDto;
 import com.anistebbal.starter.dto.RegisterUserDto;
 import com.anistebbal.starter.dto.UserResponseDto;
+import com.anistebbal.starter.services.JWTService;
+import com.anistebbal.starter.services.LoginRateLimiter;
+import com.anistebbal.starter.services.TokenRevocationService;
 import com.anistebbal.starter.services.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -18,12 +22,35 @@ public class AuthController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @Autowired
+    private JWTService jwtService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     @PostMapping("/login")
-    public ResponseEntity<LoginResponseDto> login(@Valid @RequestBody LoginRequestDTO loginDto) {
+    public ResponseEntity<LoginResponseDto> login(@Valid @RequestBody LoginRequestDTO loginDto,
+            HttpServletRequest request) {
+        // Remote address honours X-Forwarded-For only when server.forward-headers-strategy is set
+        loginRateLimiter.checkAttempt(loginDto.getPhone(), request.getRemoteAddr());
         LoginResponseDto response = userService.verify(loginDto);
         return ResponseEntity.ok(response);
     }
 
+    // Revokes the token used for this request
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.badRequest().build();
+        }
+        String token = authHeader.substring("Bearer ".length());
+        tokenRevocationService.revoke(jwtService.verify(token));
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping("/register")
     public ResponseEntity<UserResponseDto> register(@Valid @RequestBody RegisterUserDto dto) {
         UserResponseDto response = userService.registerUser(dto);
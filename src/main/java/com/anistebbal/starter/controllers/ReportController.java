@@ -1,18 +1,27 @@
 package com.anistebbal.starter.controllers;
 
 import com.anistebbal.starter.dto.*;
-import com.anistebbal.starter.entities.Report;
 
+import com.anistebbal.starter.services.ReportAnalyticsService;
+import com.anistebbal.starter.services.ReportExportService;
+import com.anistebbal.starter.services.ReportImageService;
+import com.anistebbal.starter.services.ReportIngestService;
+import com.anistebbal.starter.services.ReportRollupService;
+import com.anistebbal.starter.services.ReportSearchService;
 import com.anistebbal.starter.services.ReportService;
+import com.anistebbal.starter.services.UploadSessionService;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import com.anistebbal.starter.config.UserPrincipal;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -20,8 +29,9 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -31,6 +41,27 @@ public class ReportController {
     @Autowired
     private ReportService reportService;
 
+    @Autowired
+    private ReportExportService reportExportService;
+
+    @Autowired
+    private ReportRollupService reportRollupService;
+
+    @Autowired
+    private ReportAnalyticsService reportAnalyticsService;
+
+    @Autowired
+    private ReportIngestService reportIngestService;
+
+    @Autowired
+    private ReportSearchService reportSearchService;
+
+    @Autowired
+    private ReportImageService reportImageService;
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
     @PreAuthorize("hasRole('CITIZEN')")
     @PostMapping
     public ResponseEntity<ReportResponseCreationDTO> createReport(
@@ -43,13 +74,62 @@ public class ReportController {
         log.info("Image present? {}", image);
         log.info("Image present? {}", image != null ? "Yes" : "No");
 
-        ReportResponseCreationDTO responseDto = reportService.createReport(user.getId(), dto.getText(), image);
+        ReportResponseCreationDTO responseDto = reportService.createReport(
+                user.getId(), dto.getText(), image, dto.getUploadId());
         return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
     }
 
+    // Resumable image upload: open, PUT each chunk at ?offset=, GET to see what arrived, complete,
+    // then send the uploadId in the report's data instead of an image part
+    @PreAuthorize("hasRole('CITIZEN')")
+    @PostMapping("/uploads")
+    public ResponseEntity<UploadSessionDTO> openUpload(
+            @AuthenticationPrincipal UserPrincipal user,
+            @Valid @RequestBody CreateUploadSessionDTO dto) throws IOException {
+        return ResponseEntity.status(HttpStatus.CREATED).body(uploadSessionService.open(user.getId(), dto));
+    }
+
+    // Body is the raw chunk
+    @PreAuthorize("hasRole('CITIZEN')")
+    @PutMapping("/uploads/{uploadId}")
+    public ResponseEntity<UploadSessionDTO> uploadChunk(
+            @PathVariable String uploadId,
+            @RequestParam long offset,
+            @AuthenticationPrincipal UserPrincipal user,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(uploadSessionService.writeChunk(user.getId(), uploadId, offset, request.getInputStream()));
+    }
+
+    @PreAuthorize("hasRole('CITIZEN')")
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<UploadSessionDTO> getUpload(
+            @PathVariable String uploadId,
+            @AuthenticationPrincipal UserPrincipal user) throws IOException {
+        return ResponseEntity.ok(uploadSessionService.status(user.getId(), uploadId));
+    }
+
+    // ?sha256= is optional; with it a corrupted upload is caught before it reaches a report
+    @PreAuthorize("hasRole('CITIZEN')")
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<UploadSessionDTO> completeUpload(
+            @PathVariable String uploadId,
+            @RequestParam(required = false) String sha256,
+            @AuthenticationPrincipal UserPrincipal user) throws IOException {
+        return ResponseEntity.ok(uploadSessionService.complete(user.getId(), uploadId, sha256));
+    }
+
+    @PreAuthorize("hasRole('CITIZEN')")
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<Void> cancelUpload(
+            @PathVariable String uploadId,
+            @AuthenticationPrincipal UserPrincipal user) {
+        uploadSessionService.cancel(user.getId(), uploadId);
+        return ResponseEntity.noContent().build();
+    }
+
     @PreAuthorize("hasRole('CITIZEN')")
     @GetMapping("/citizen")
-    public ResponseEntity<List<CitizenReportResponseDTO>> getReportsForCitizen(
+    public ResponseEntity<CursorPageDTO<CitizenReportResponseDTO>> getReportsForCitizen(
             @AuthenticationPrincipal UserPrincipal user,
             @ModelAttribute CitizenReportFilterDTO filter) {
         log.info("🔐 Accessed /citizen by user: {}", user.getUsername());
@@ -57,28 +137,110 @@ public class ReportController {
                 filter.getStartDate(), filter.getEndDate(), filter.getStatus());
 
         Long userId = user.getId();
-        List<CitizenReportResponseDTO> response = reportService.getReportsForCitizen(userId, filter);
+        CursorPageDTO<CitizenReportResponseDTO> response = reportService.getReportsForCitizen(userId, filter);
         return ResponseEntity.ok(response);
     }
 
+    // ?variant=thumbnail|preview|original; ?v=<imagePath> pins the URL to that image, which lets clients cache it for good
+    @GetMapping("/{reportId}/image")
+    @PreAuthorize("hasAnyRole('ADMIN','CITIZEN')")
+    public void getReportImage(
+            @PathVariable Long reportId,
+            @AuthenticationPrincipal UserPrincipal user,
+            @RequestParam(required = false) String variant,
+            @RequestParam(value = "v", required = false) String version,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        ImageVariant imageVariant = ImageVariant.from(variant);
+        ReportImageRef image = reportImageService.locate(
+                reportId, user.getId(), user.getStreetId(), "ADMIN".equalsIgnoreCase(user.getRole()));
+        reportImageService.serve(image, imageVariant, version, request, response);
+    }
+
+    // A short-lived URL for the image that needs no token, for <img> tags and downloads
+    @GetMapping("/{reportId}/image/url")
+    @PreAuthorize("hasAnyRole('ADMIN','CITIZEN')")
+    public ResponseEntity<ImageUrlDTO> getReportImageUrl(
+            @PathVariable Long reportId,
+            @AuthenticationPrincipal UserPrincipal user,
+            @RequestParam(required = false) String variant) throws IOException {
+        ImageVariant imageVariant = ImageVariant.from(variant);
+        ReportImageRef image = reportImageService.locate(
+                reportId, user.getId(), user.getStreetId(), "ADMIN".equalsIgnoreCase(user.getRole()));
+        return ResponseEntity.ok(reportImageService.imageUrl(image, imageVariant));
+    }
+
+    // Target of the URLs above when images are stored locally; open to anyone holding a valid signature
+    @GetMapping("/images/signed")
+    public void getSignedImage(
+            @RequestParam String key,
+            @RequestParam long expires,
+            @RequestParam String signature,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        reportImageService.serveSigned(key, expires, signature, request, response);
+    }
+
     @GetMapping("/admin")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<ReportResponseDTO>> getReportsForAdmin(
+    public ResponseEntity<CursorPageDTO<ReportResponseDTO>> getReportsForAdmin(
             @ModelAttribute AdminReportFilterDTO filter) {
 
-        List<ReportResponseDTO> response = reportService.getReportsForAdmin(filter);
+        CursorPageDTO<ReportResponseDTO> response = reportService.getReportsForAdmin(filter);
         return ResponseEntity.ok(response);
     }
 
+    // e.g. ?q=water leak&districtId=3&status=PENDING&startDate=2024-01-01
+    @GetMapping("/admin/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ReportSearchResultDTO> searchReports(@ModelAttribute ReportSearchQueryDTO query) {
+        return ResponseEntity.ok(reportSearchService.search(query));
+    }
+
+    // Streams the whole filtered range; districtId is optional here (city-wide export)
+    @GetMapping("/admin/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportReportsForAdmin(
+            @ModelAttribute AdminReportFilterDTO filter,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.from(format);
+
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"reports-" + LocalDate.now() + "." + exportFormat.getExtension() + "\"");
+
+        reportExportService.exportAdminReports(filter, exportFormat, response.getOutputStream());
+    }
+
     @PutMapping("/{reportId}/status")
     @PreAuthorize("hasRole('CITIZEN')")
-    public ResponseEntity<Report> updateStatus(
+    public ResponseEntity<ReportStatusDTO> updateStatus(
             @PathVariable Long reportId,
             @Valid @RequestBody UpdateReportStatusDTO dto) {
-        Report updated = reportService.updateStatus(reportId, dto.getStatus());
+        ReportStatusDTO updated = reportService.updateStatus(reportId, dto.getStatus(), dto.getVersion());
         return ResponseEntity.ok(updated);
     }
 
+    // Body is the raw NDJSON or CSV stream; re-sending it with the same jobId resumes after the last committed chunk
+    @PostMapping("/admin/ingest")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<IngestResultDTO> ingestReports(
+            @RequestParam String jobId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletRequest request) throws IOException {
+        IngestResultDTO result = reportIngestService.ingest(jobId, ExportFormat.from(format), request.getInputStream());
+        return ResponseEntity.ok(result);
+    }
+
+    @PutMapping("/admin/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkStatusUpdateResultDTO> bulkUpdateStatus(
+            @Valid @RequestBody BulkStatusUpdateDTO request) {
+        return ResponseEntity.ok(reportService.bulkUpdateStatus(request));
+    }
+
     @DeleteMapping("/{reportId}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> deleteReport(@PathVariable Long reportId) {
@@ -95,6 +257,22 @@ public class ReportController {
         return ResponseEntity.ok(analytics);
     }
 
+    // e.g. ?startDate=2024-01-01&endDate=2024-12-31&groupBy=district,status&bucket=month
+    @GetMapping("/admin/analytics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<ReportAnalyticsGroupDTO>> getGroupedAnalytics(
+            @ModelAttribute AnalyticsQueryDTO query) {
+        return ResponseEntity.ok(reportAnalyticsService.getGroupedAnalytics(query));
+    }
+
+    // Backfills or repairs the analytics rollup for a date range
+    @PostMapping("/admin/rollup/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> rebuildRollup(@Valid @RequestBody DateRangeDTO dateRange) {
+        int rows = reportRollupService.rebuild(dateRange.getStartDate(), dateRange.getEndDate());
+        return ResponseEntity.ok(Map.of("rollupRows", rows));
+    }
+
     @PutMapping("/{reportId}/user")
     @PreAuthorize("hasRole('CITIZEN')")
     public ResponseEntity<ReportResponseCreationDTO> updateReportContent(
@@ -103,7 +281,8 @@ public class ReportController {
             @Valid @RequestPart("data") CreateReportDTO dto,
             @RequestPart(value = "image", required = false) MultipartFile image) throws IOException {
 
-        ReportResponseCreationDTO updated = reportService.updateReportContent(user.getId(), reportId, dto, image);
+        ReportResponseCreationDTO updated = reportService.updateReportContent(
+                user.getId(), user.getStreetId(), reportId, dto, image);
         return ResponseEntity.ok(updated);
     }
 
@@ -112,7 +291,7 @@ public class ReportController {
     public ResponseEntity<?> deleteReportByUser(
             @PathVariable Long reportId,
             @AuthenticationPrincipal UserPrincipal user) {
-        reportService.deleteReportByUser(user.getId(), reportId);
+        reportService.deleteReportByUser(user.getId(), user.getStreetId(), reportId);
         return ResponseEntity.ok("Report deleted successfully by user");
     }
 }
@@ -17,6 +17,10 @@ public class AdminReportFilterDTO {
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
     private LocalDate endDate;
 
+    // Opaque token from the previous page; absent for the first page
+    private String cursor;
+    private Integer size;
+
     // Getters & Setters
     public Long getDistrictId() {
         return districtId;
@@ -57,4 +61,20 @@ public class AdminReportFilterDTO {
     public void setEndDate(LocalDate endDate) {
         this.endDate = endDate;
     }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
 }
@@ -0,0 +1,16 @@
+package com.anistebbal.starter.dto;
+
+public enum AnalyticsDimension {
+    DISTRICT,
+    STREET,
+    STATUS;
+
+    public static AnalyticsDimension from(String value) {
+        for (AnalyticsDimension dimension : values()) {
+            if (dimension.name().equalsIgnoreCase(value.trim())) {
+                return dimension;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported group-by dimension: " + value);
+    }
+}
@@ -0,0 +1,30 @@
+package com.anistebbal.starter.dto;
+
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnalyticsQueryDTO {
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDate;
+
+    // Optional restriction to a single district
+    private Long districtId;
+
+    // Any of district, street, status; e.g. groupBy=district,status
+    private List<String> groupBy;
+
+    // Optional: day, week or month
+    private String bucket;
+}
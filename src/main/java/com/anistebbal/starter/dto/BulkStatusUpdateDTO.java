@@ -0,0 +1,35 @@
+package com.anistebbal.starter.dto;
+
+import com.anistebbal.starter.entities.ReportStatus;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkStatusUpdateDTO {
+
+    @NotEmpty(message = "At least one update is required")
+    @Size(max = 1000, message = "At most 1000 updates per request")
+    private List<@Valid @NotNull Item> updates;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+
+        @NotNull(message = "Report ID must not be null")
+        private Long reportId;
+
+        @NotNull(message = "Status must not be null")
+        private ReportStatus status;
+    }
+}
@@ -0,0 +1,35 @@
+package com.anistebbal.starter.dto;
+
+import com.anistebbal.starter.entities.ReportStatus;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkStatusUpdateResultDTO {
+
+    private int updated;
+    private List<ItemResult> results;
+
+    public enum Outcome {
+        UPDATED,
+        UNCHANGED, // already had the requested status
+        NOT_FOUND,
+        INVALID_TRANSITION, // see ReportStatus.canTransitionTo
+        DUPLICATE // the same report appeared earlier in the request; the first entry wins
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        private Long reportId;
+        private ReportStatus status;
+        private Outcome outcome;
+    }
+}
@@ -15,6 +15,10 @@ public class CitizenReportFilterDTO {
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
     private LocalDate endDate;
 
+    // Opaque token from the previous page; absent for the first page
+    private String cursor;
+    private Integer size;
+
     // Getters and Setters
     public ReportStatus getStatus() {
         return status;
@@ -39,4 +43,20 @@ public class CitizenReportFilterDTO {
     public void setEndDate(LocalDate endDate) {
         this.endDate = endDate;
     }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
 }
@@ -2,17 +2,20 @@ package com.anistebbal.starter.dto;
 
 import com.anistebbal.starter.entities.ReportStatus;
 import java.time.LocalDate;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
 @Data
 @Builder
+@AllArgsConstructor // used by JPQL constructor projections in ReportRepository
 public class CitizenReportResponseDTO {
 
     private Long id;
     private String text;
     private ReportStatus status;
     private LocalDate createdAt;
+    private long version; // send back with status updates
 
     // Getters and Setters
 
@@ -47,4 +50,12 @@ public class CitizenReportResponseDTO {
     public void setCreatedAt(LocalDate createdAt) {
         this.createdAt = createdAt;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -12,6 +12,9 @@ public class CreateReportDTO {
     // We will handle the image as MultipartFile in the controller
     // So no need to include it here unless you're using JSON upload
 
+    // Alternatively, a completed resumable upload (POST /api/reports/uploads) to use as the image
+    private String uploadId;
+
     public String getText() {
         return text;
     }
@@ -19,4 +22,12 @@ public class CreateReportDTO {
     public void setText(String text) {
         this.text = text;
     }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
 }
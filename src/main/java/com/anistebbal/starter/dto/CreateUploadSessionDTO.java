@@ -0,0 +1,21 @@
+package com.anistebbal.starter.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class CreateUploadSessionDTO {
+
+    @NotNull(message = "Size is required")
+    @Positive(message = "Size must be positive")
+    private Long sizeBytes;
+
+    @NotBlank(message = "Content type is required")
+    private String contentType;
+}
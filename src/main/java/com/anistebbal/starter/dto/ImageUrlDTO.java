@@ -0,0 +1,14 @@
+package com.anistebbal.starter.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class ImageUrlDTO {
+    private String url; // readable without a token until expiresAt
+    private ImageVariant variant; // ORIGINAL when the requested variant is not rendered yet
+    private Instant expiresAt;
+}
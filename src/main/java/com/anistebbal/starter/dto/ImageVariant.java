@@ -0,0 +1,35 @@
+package com.anistebbal.starter.dto;
+
+// The sizes a report image can be served in; ORIGINAL is the uploaded file as-is
+public enum ImageVariant {
+    ORIGINAL(0),
+    PREVIEW(1280),
+    THUMBNAIL(320);
+
+    private final int maxSide;
+
+    ImageVariant(int maxSide) {
+        this.maxSide = maxSide;
+    }
+
+    // Longest edge in pixels; smaller images are re-encoded but never enlarged
+    public int getMaxSide() {
+        return maxSide;
+    }
+
+    public String getSuffix() {
+        return name().toLowerCase();
+    }
+
+    public static ImageVariant from(String value) {
+        if (value == null || value.isBlank()) {
+            return ORIGINAL;
+        }
+        for (ImageVariant variant : values()) {
+            if (variant.name().equalsIgnoreCase(value.trim())) {
+                return variant;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported image variant: " + value);
+    }
+}
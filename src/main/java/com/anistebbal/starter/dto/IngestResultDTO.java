@@ -0,0 +1,38 @@
+package com.anistebbal.starter.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IngestResultDTO {
+
+    private String jobId;
+
+    // Records skipped because an earlier run of the same job already committed them
+    private long skipped;
+    private long inserted;
+    private long rejected;
+
+    // Totals across every run of the job
+    private long recordsCommitted;
+
+    private long elapsedMillis;
+    private double rowsPerSecond;
+
+    // First few rejections only
+    private List<RowError> errors;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long record;
+        private String message;
+    }
+}
@@ -11,5 +11,6 @@ public class ReportAnalyticsDTO {
     private int totalReports;
     private int resolvedReports;
     private int pendingReports;
+    private int duplicateReports; // filed as probable duplicates of an earlier report
     private double resolutionRate; // (%) Example: 76.2
 }
@@ -0,0 +1,28 @@
+package com.anistebbal.starter.dto;
+
+import com.anistebbal.starter.entities.ReportStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.time.LocalDate;
+
+// One row of grouped analytics; dimensions that were not grouped on are left out
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReportAnalyticsGroupDTO {
+    private Long districtId;
+    private String districtName;
+    private Long streetId;
+    private String streetName;
+    private ReportStatus status;
+    private LocalDate bucketStart;
+    private long totalReports;
+    private long resolvedReports;
+    private long pendingReports;
+    private long duplicateReports;
+    private double resolutionRate; // (%)
+}
@@ -0,0 +1,8 @@
+package com.anistebbal.starter.dto;
+
+import java.time.LocalDate;
+
+// What the duplicate detector keeps about a recent report
+public record ReportDuplicateCandidate(Long id, Long streetId, String description, Long duplicateOfId,
+        LocalDate createdAt) {
+}
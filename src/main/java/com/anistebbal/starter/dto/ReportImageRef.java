@@ -0,0 +1,6 @@
+package com.anistebbal.starter.dto;
+
+// Where a report's image lives, plus the content type recorded when it was stored
+// (null for images saved before the content-addressed store)
+public record ReportImageRef(String imagePath, String contentType) {
+}
@@ -14,4 +14,5 @@ public class ReportResponseCreationDTO {
     private String status;
     private String createdAt;
     private String streetName;
+    private Long duplicateOf; // earlier report on the same street this one probably repeats
 }
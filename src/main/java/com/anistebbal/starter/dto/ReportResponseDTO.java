@@ -3,11 +3,13 @@ package com.anistebbal.starter.dto;
 import com.anistebbal.starter.entities.ReportStatus;
 
 import java.time.LocalDate;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
 @Data
 @Builder
+@AllArgsConstructor // used by JPQL constructor projections in ReportRepository
 public class ReportResponseDTO {
 
     private Long id;
@@ -16,6 +18,8 @@ public class ReportResponseDTO {
     private LocalDate createdAt;
     private String streetName;
     private String districtName;
+    private long version; // send back with status updates
+    private Long duplicateOfId; // set on probable duplicates
 
     // Getters and Setters
     public Long getId() {
@@ -65,4 +69,20 @@ public class ReportResponseDTO {
     public void setDistrictName(String districtName) {
         this.districtName = districtName;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public Long getDuplicateOfId() {
+        return duplicateOfId;
+    }
+
+    public void setDuplicateOfId(Long duplicateOfId) {
+        this.duplicateOfId = duplicateOfId;
+    }
 }
@@ -0,0 +1,10 @@
+package com.anistebbal.starter.dto;
+
+import com.anistebbal.starter.entities.ReportStatus;
+
+import java.time.LocalDate;
+
+// The columns the search index needs for one report
+public record ReportSearchDocument(Long id, String description, ReportStatus status, LocalDate createdAt,
+        Long districtId) {
+}
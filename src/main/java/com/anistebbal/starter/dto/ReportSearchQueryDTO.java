@@ -0,0 +1,29 @@
+package com.anistebbal.starter.dto;
+
+import com.anistebbal.starter.entities.ReportStatus;
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReportSearchQueryDTO {
+
+    // Free text; every word must appear in the description
+    private String q;
+
+    private Long districtId;
+    private ReportStatus status;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDate;
+
+    private Integer size;
+}
@@ -0,0 +1,15 @@
+package com.anistebbal.starter.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportSearchResultDTO {
+
+    private int total; // all matches; reports holds the newest of them
+    private List<ReportResponseDTO> reports;
+}
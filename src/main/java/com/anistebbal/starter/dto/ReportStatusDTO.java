@@ -0,0 +1,16 @@
+package com.anistebbal.starter.dto;
+
+import com.anistebbal.starter.entities.ReportStatus;
+import lombok.*;
+
+// Response to a status change: enough for the client to continue with the next conditional update
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportStatusDTO {
+
+    private Long id;
+    private ReportStatus status;
+    private long version;
+}
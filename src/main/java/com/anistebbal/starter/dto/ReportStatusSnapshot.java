@@ -0,0 +1,10 @@
+package com.anistebbal.starter.dto;
+
+import com.anistebbal.starter.entities.ReportStatus;
+
+import java.time.LocalDate;
+
+// The columns a status change needs, read without loading the Report entity
+public record ReportStatusSnapshot(Long id, ReportStatus status, LocalDate createdAt, Long streetId,
+        long version, Long duplicateOfId) {
+}
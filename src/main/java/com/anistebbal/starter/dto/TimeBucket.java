@@ -0,0 +1,29 @@
+package com.anistebbal.starter.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+public enum TimeBucket {
+    DAY,
+    WEEK,
+    MONTH;
+
+    // First day of the bucket containing the given day; weeks start on Monday
+    public LocalDate startOf(LocalDate day) {
+        return switch (this) {
+            case DAY -> day;
+            case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> day.withDayOfMonth(1);
+        };
+    }
+
+    public static TimeBucket from(String value) {
+        for (TimeBucket bucket : values()) {
+            if (bucket.name().equalsIgnoreCase(value.trim())) {
+                return bucket;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported time bucket: " + value);
+    }
+}
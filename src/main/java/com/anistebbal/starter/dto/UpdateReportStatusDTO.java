@@ -8,6 +8,9 @@ public class UpdateReportStatusDTO {
     @NotNull(message = "Status must not be null")
     private ReportStatus status;
 
+    // The version the client last read; when present, the update fails with 409 if the report changed since
+    private Long version;
+
     public ReportStatus getStatus() {
         return status;
     }
@@ -15,4 +18,12 @@ public class UpdateReportStatusDTO {
     public void setStatus(ReportStatus status) {
         this.status = status;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,41 @@
+package com.anistebbal.starter.dto;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSessionDTO {
+
+    // Pass as uploadId in a report's data once complete
+    private String uploadId;
+
+    private long sizeBytes;
+
+    // PUT every chunk at a multiple of this offset; only the last one may be shorter
+    private int chunkSize;
+
+    // What has arrived, merged into runs; a resumed client sends whatever is not covered
+    private List<Range> received;
+    private long receivedBytes;
+
+    private boolean complete;
+    private String sha256;
+
+    private Instant expiresAt;
+
+    // Inclusive byte positions, as in an HTTP Range header
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Range {
+        private long start;
+        private long end;
+    }
+}
@@ -0,0 +1,36 @@
+package com.anistebbal.starter.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Progress of a named report import; advanced in the same transaction as each chunk it covers
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IngestJob {
+
+    // Chosen by the caller, e.g. "hotline-2024-05-01"
+    @Id
+    private String id;
+
+    // Records of the input (1-based, in order) already committed; a resumed run skips them
+    @Column(nullable = false)
+    private long recordsCommitted;
+
+    @Column(nullable = false)
+    private long inserted;
+
+    @Column(nullable = false)
+    private long rejected;
+
+    @Column(nullable = false)
+    private Instant startedAt;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+}
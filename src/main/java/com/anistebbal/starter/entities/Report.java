@@ -2,12 +2,19 @@ package com.anistebbal.starter.entities;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDate;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 
 @Entity
+@Table(indexes = {
+        // Keyset pagination on (createdAt, id), per street and across streets
+        @Index(name = "idx_report_street_created", columnList = "street_id, createdAt, id"),
+        @Index(name = "idx_report_created", columnList = "createdAt, id")
+})
+@NamedEntityGraph(name = "Report.withStreet", attributeNodes = @NamedAttributeNode("street"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,14 +22,20 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 @Builder
 public class Report {
 
+    public static final int ALLOCATION_SIZE = 50;
+
+    // Pooled sequence rather than IDENTITY so Hibernate can batch inserts; each
+    // round-trip to the sequence reserves ALLOCATION_SIZE ids
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "report_seq")
+    @SequenceGenerator(name = "report_seq", sequenceName = "report_seq", allocationSize = ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
     private String description;
 
-    @Column(nullable = true, unique = true)
+    // SHA-256 of the image in ReportImageStore; shared by reports that uploaded the same bytes
+    @Column(nullable = true)
     private String imagePath;
 
     @Column(nullable = false)
@@ -32,18 +45,33 @@ public class Report {
     @Column(nullable = false)
     private ReportStatus status;
 
-    @ManyToOne
+    // Bumped by every change; status updates are conditional on the version the
+    // client read, so two admins cannot silently overwrite each other
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
+    // Set when the report was filed as a probable duplicate of an earlier one on the same
+    // street. Plain id rather than a relation: it stays as a record even if that report is deleted.
+    @Column(name = "duplicate_of_id")
+    private Long duplicateOfId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "street_id", nullable = false)
     private Street street;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @JsonBackReference
     private User user;
 
     @PrePersist
     protected void onCreate() {
-        this.createdAt = LocalDate.now();
+        // Imported reports keep their original date
+        if (this.createdAt == null) {
+            this.createdAt = LocalDate.now();
+        }
         if (this.status == null) {
             this.status = ReportStatus.PENDING;
         }
@@ -0,0 +1,52 @@
+package com.anistebbal.starter.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// Number of reports per (day, street, status), and how many of them were filed as
+// probable duplicates; kept in step with the report table by ReportRollupService
+// so analytics never scan individual reports
+@Entity
+@Table(name = "report_daily_rollup")
+@IdClass(ReportDailyRollup.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReportDailyRollup {
+
+    @Id
+    @Column(name = "report_day")
+    private LocalDate day;
+
+    @Id
+    @Column(name = "street_id")
+    private Long streetId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private ReportStatus status;
+
+    @Column(nullable = false)
+    private long reportCount;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long duplicateCount;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private LocalDate day;
+        private Long streetId;
+        private ReportStatus status;
+    }
+}
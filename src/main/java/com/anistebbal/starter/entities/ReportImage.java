@@ -0,0 +1,33 @@
+package com.anistebbal.starter.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// One stored image file, named by the SHA-256 of its bytes; refCount is the number
+// of reports pointing at it, and the file is removed once that reaches zero
+@Entity
+@Table(name = "report_image")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReportImage {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false)
+    private long refCount;
+
+    @Column(nullable = false)
+    private long sizeBytes;
+
+    private String contentType;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -4,5 +4,14 @@ public enum ReportStatus {
     PENDING,
     IN_PROGRESS,
     RESOLVED,
-    REJECTED
+    REJECTED;
+
+    // Open reports can move anywhere; closed ones can only be reopened
+    public boolean canTransitionTo(ReportStatus next) {
+        return switch (this) {
+            case PENDING, IN_PROGRESS -> next != this;
+            case RESOLVED -> next == IN_PROGRESS;
+            case REJECTED -> next == PENDING;
+        };
+    }
 }
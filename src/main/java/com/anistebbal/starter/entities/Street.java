@@ -7,8 +7,12 @@ import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 @Entity
+@Table(indexes = @Index(name = "idx_street_district", columnList = "district_id"))
+@NamedEntityGraph(name = "Street.withDistrict", attributeNodes = @NamedAttributeNode("district"))
+@JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -23,7 +27,7 @@ public class Street {
     @Column(nullable = false, unique = true)
     private String name;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "district_id", nullable = false)
     @JsonBackReference // 👈 Add this
     private District district;
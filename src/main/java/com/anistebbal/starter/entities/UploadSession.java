@@ -0,0 +1,48 @@
+package com.anistebbal.starter.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// A resumable image upload; its bytes sit in a file on the node that opened it until a report takes them
+@Entity
+@Table(name = "upload_session", indexes = {
+        @Index(name = "idx_upload_session_user", columnList = "userId"),
+        @Index(name = "idx_upload_session_expires_at", columnList = "expiresAt")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSession {
+
+    // Random, 32 hex characters; also names the files
+    @Id
+    @Column(length = 32)
+    private String id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private long sizeBytes;
+
+    // Every chunk is this long except the last
+    @Column(nullable = false)
+    private int chunkSize;
+
+    @Column(nullable = false)
+    private String contentType;
+
+    // SHA-256 of the bytes, set once every chunk has arrived and the upload is completed
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
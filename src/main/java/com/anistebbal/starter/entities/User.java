@@ -1,12 +1,16 @@
 package com.anistebbal.starter.entities;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(name = "\"user\"")
+@NamedEntityGraph(name = "User.withStreet", attributeNodes = @NamedAttributeNode("street"))
+@JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -29,9 +33,14 @@ public class User {
     @Column(nullable = false)
     private String role; // "CITIZEN" or "ADMIN"
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "street_id")
     @JsonBackReference
     private Street street;
 
+    // Bumped whenever the account changes so previously issued tokens stop working
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int securityVersion;
+
 }
@@ -0,0 +1,16 @@
+package com.anistebbal.starter.exceptions;
+
+// Thrown when a caller exceeds its request budget; mapped to 429 with a Retry-After header
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,10 +1,16 @@
 package com.anistebbal.starter.repositories;
 
 import com.anistebbal.starter.entities.District;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface DistrictRepository extends JpaRepository<District, Long> {
+    @EntityGraph("District.withCityAndStreets")
     List<District> findByCityId(Long cityId);
+
+    @EntityGraph("District.withCityAndStreets")
+    Optional<District> findWithCityAndStreetsById(Long id);
 }
@@ -0,0 +1,18 @@
+package com.anistebbal.starter.repositories;
+
+import com.anistebbal.starter.entities.IngestJob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface IngestJobRepository extends JpaRepository<IngestJob, String> {
+
+    // Held for the duration of a chunk so two runs of the same job cannot interleave
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM IngestJob j WHERE j.id = :id")
+    Optional<IngestJob> lockById(@Param("id") String id);
+}
@@ -0,0 +1,74 @@
+package com.anistebbal.starter.repositories;
+
+import com.anistebbal.starter.entities.ReportDailyRollup;
+import com.anistebbal.starter.entities.ReportStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+
+public interface ReportDailyRollupRepository extends JpaRepository<ReportDailyRollup, ReportDailyRollup.Key> {
+
+    interface Totals {
+        long getTotal();
+
+        long getResolved();
+
+        long getPending();
+
+        long getDuplicates();
+    }
+
+    @Modifying
+    @Query("""
+            UPDATE ReportDailyRollup r
+            SET r.reportCount = r.reportCount + :delta,
+                r.duplicateCount = r.duplicateCount + :duplicateDelta
+            WHERE r.day = :day AND r.streetId = :streetId AND r.status = :status
+            """)
+    int increment(@Param("day") LocalDate day,
+            @Param("streetId") Long streetId,
+            @Param("status") ReportStatus status,
+            @Param("delta") long delta,
+            @Param("duplicateDelta") long duplicateDelta);
+
+    // Seeds an empty row; concurrent first writers for the same key all succeed
+    @Modifying
+    @Query(value = """
+            INSERT INTO report_daily_rollup (report_day, street_id, status, report_count, duplicate_count)
+            VALUES (:day, :streetId, :status, 0, 0)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("day") LocalDate day,
+            @Param("streetId") Long streetId,
+            @Param("status") String status);
+
+    @Query("""
+            SELECT COALESCE(SUM(r.reportCount), 0) AS total,
+                   COALESCE(SUM(CASE WHEN r.status = com.anistebbal.starter.entities.ReportStatus.RESOLVED
+                                     THEN r.reportCount ELSE 0 END), 0) AS resolved,
+                   COALESCE(SUM(CASE WHEN r.status = com.anistebbal.starter.entities.ReportStatus.PENDING
+                                     THEN r.reportCount ELSE 0 END), 0) AS pending,
+                   COALESCE(SUM(r.duplicateCount), 0) AS duplicates
+            FROM ReportDailyRollup r
+            WHERE r.day BETWEEN :startDate AND :endDate
+            """)
+    Totals sumBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query("DELETE FROM ReportDailyRollup r WHERE r.day BETWEEN :startDate AND :endDate")
+    int deleteBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO report_daily_rollup (report_day, street_id, status, report_count, duplicate_count)
+            SELECT created_at, street_id, status, COUNT(*),
+                   SUM(CASE WHEN duplicate_of_id IS NOT NULL THEN 1 ELSE 0 END)
+            FROM report
+            WHERE created_at BETWEEN :startDate AND :endDate
+            GROUP BY created_at, street_id, status
+            """, nativeQuery = true)
+    int rebuildBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
@@ -0,0 +1,39 @@
+package com.anistebbal.starter.repositories;
+
+import com.anistebbal.starter.entities.ReportImage;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface ReportImageRepository extends JpaRepository<ReportImage, String> {
+
+    // Seeds an unreferenced row; concurrent first uploads of the same bytes all succeed
+    @Modifying
+    @Query(value = """
+            INSERT INTO report_image (hash, ref_count, size_bytes, content_type, created_at)
+            VALUES (:hash, 0, :sizeBytes, :contentType, CURRENT_TIMESTAMP)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("hash") String hash,
+            @Param("sizeBytes") long sizeBytes,
+            @Param("contentType") String contentType);
+
+    // Also takes the row lock, which is held until the surrounding transaction ends
+    @Modifying
+    @Query("UPDATE ReportImage i SET i.refCount = i.refCount + :delta WHERE i.hash = :hash")
+    int adjustReferences(@Param("hash") String hash, @Param("delta") long delta);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM ReportImage i WHERE i.hash = :hash")
+    Optional<ReportImage> lockByHash(@Param("hash") String hash);
+
+    @Query("SELECT i.hash FROM ReportImage i WHERE i.refCount <= 0 AND i.createdAt < :cutoff")
+    List<String> findUnreferencedBefore(@Param("cutoff") Instant cutoff);
+}
@@ -1,17 +1,105 @@
 package com.anistebbal.starter.repositories;
 
+import com.anistebbal.starter.dto.CitizenReportResponseDTO;
+import com.anistebbal.starter.dto.ReportDuplicateCandidate;
+import com.anistebbal.starter.dto.ReportImageRef;
+import com.anistebbal.starter.dto.ReportResponseDTO;
+import com.anistebbal.starter.dto.ReportSearchDocument;
+import com.anistebbal.starter.dto.ReportStatusSnapshot;
 import com.anistebbal.starter.entities.Report;
 import com.anistebbal.starter.entities.ReportStatus;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ReportRepository extends JpaRepository<Report, Long> {
 
+    @EntityGraph("Report.withStreet")
+    Optional<Report> findWithStreetById(Long id);
+
+    // A report the citizen may edit or delete: their own, or one on their street.
+    // Empty both when the report does not exist and when access is denied.
+    @EntityGraph("Report.withStreet")
+    @Query("""
+            SELECT r FROM Report r
+            WHERE r.id = :reportId
+              AND (r.user.id = :userId OR r.street.id = :streetId)
+            """)
+    Optional<Report> findAuthorizedForCitizen(
+            @Param("reportId") Long reportId,
+            @Param("userId") Long userId,
+            @Param("streetId") Long streetId);
+
+    // A report's image for an admin, who may see any report
+    @Query("""
+            SELECT new com.anistebbal.starter.dto.ReportImageRef(r.imagePath, i.contentType)
+            FROM Report r LEFT JOIN ReportImage i ON i.hash = r.imagePath
+            WHERE r.id = :reportId
+            """)
+    Optional<ReportImageRef> findImageRef(@Param("reportId") Long reportId);
+
+    // Same rule as findAuthorizedForCitizen: the citizen's own report or one on their street
+    @Query("""
+            SELECT new com.anistebbal.starter.dto.ReportImageRef(r.imagePath, i.contentType)
+            FROM Report r LEFT JOIN ReportImage i ON i.hash = r.imagePath
+            WHERE r.id = :reportId
+              AND (r.user.id = :userId OR r.street.id = :streetId)
+            """)
+    Optional<ReportImageRef> findAuthorizedImageRefForCitizen(
+            @Param("reportId") Long reportId,
+            @Param("userId") Long userId,
+            @Param("streetId") Long streetId);
+
+    // Locks the rows (in id order, so concurrent bulk updates cannot deadlock)
+    // until the surrounding transaction ends. JPA only promises lock modes for
+    // entity results; ReportRollupServiceTest checks this projection still
+    // reads FOR UPDATE
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            SELECT new com.anistebbal.starter.dto.ReportStatusSnapshot(
+                r.id, r.status, r.createdAt, r.street.id, r.version, r.duplicateOfId)
+            FROM Report r
+            WHERE r.id IN :ids
+            ORDER BY r.id
+            """)
+    List<ReportStatusSnapshot> lockStatusSnapshots(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+            SELECT new com.anistebbal.starter.dto.ReportStatusSnapshot(
+                r.id, r.status, r.createdAt, r.street.id, r.version, r.duplicateOfId)
+            FROM Report r
+            WHERE r.id = :id
+            """)
+    Optional<ReportStatusSnapshot> findStatusSnapshot(@Param("id") Long id);
+
+    // Returns 0 when the report was changed (or deleted) after the caller read it
+    @Modifying
+    @Query("""
+            UPDATE Report r SET r.status = :status, r.version = r.version + 1
+            WHERE r.id = :id AND r.version = :version
+            """)
+    int updateStatusIfVersion(@Param("id") Long id, @Param("status") ReportStatus status,
+            @Param("version") long version);
+
+    @Modifying
+    @Query("UPDATE Report r SET r.status = :status, r.version = r.version + 1 WHERE r.id IN :ids")
+    int updateStatusIn(@Param("ids") Collection<Long> ids, @Param("status") ReportStatus status);
+
     // Existing methods
     List<Report> findByStreetId(Long streetId);
 
@@ -47,14 +135,108 @@ public interface ReportRepository extends JpaRepository<Report, Long> {
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate);
 
-    @Query(value = """
-            SELECT
-                COUNT(*) AS total_reports,
-                COUNT(*) FILTER (WHERE status = 'RESOLVED') AS resolved_reports,
-                COUNT(*) FILTER (WHERE status = 'PENDING') AS pending_reports
-            FROM report
-            WHERE created_at BETWEEN :startDate AND :endDate
-            """, nativeQuery = true)
-    Object[] getReportAnalytics(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    // Keyset pages: rows strictly after the cursor in (createdAt, id) descending order.
+    // Projected straight into DTOs, so no entities are loaded or tracked.
+    @Query("""
+            SELECT new com.anistebbal.starter.dto.ReportResponseDTO(
+                r.id, r.description, r.status, r.createdAt, s.name, d.name, r.version, r.duplicateOfId)
+            FROM Report r JOIN r.street s JOIN s.district d
+            WHERE d.id = :districtId
+              AND (:streetId IS NULL OR s.id = :streetId)
+              AND (:status IS NULL OR r.status = :status)
+              AND (r.createdAt BETWEEN :startDate AND :endDate)
+              AND (r.createdAt < :cursorDate OR (r.createdAt = :cursorDate AND r.id < :cursorId))
+            ORDER BY r.createdAt DESC, r.id DESC
+            """)
+    List<ReportResponseDTO> findAdminReportsPage(
+            @Param("districtId") Long districtId,
+            @Param("streetId") Long streetId,
+            @Param("status") ReportStatus status,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("cursorDate") LocalDate cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable pageable);
+
+    // Forward-only cursor for exports: rows are fetched from the driver in batches
+    // of the fetch size while the caller consumes the stream. Must be consumed
+    // inside a transaction and closed afterwards. A null district exports the city.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("""
+            SELECT new com.anistebbal.starter.dto.ReportResponseDTO(
+                r.id, r.description, r.status, r.createdAt, s.name, d.name, r.version, r.duplicateOfId)
+            FROM Report r JOIN r.street s JOIN s.district d
+            WHERE (:districtId IS NULL OR d.id = :districtId)
+              AND (:streetId IS NULL OR s.id = :streetId)
+              AND (:status IS NULL OR r.status = :status)
+              AND (r.createdAt BETWEEN :startDate AND :endDate)
+            ORDER BY r.createdAt DESC, r.id DESC
+            """)
+    Stream<ReportResponseDTO> streamAdminReports(
+            @Param("districtId") Long districtId,
+            @Param("streetId") Long streetId,
+            @Param("status") ReportStatus status,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    @Query("""
+            SELECT new com.anistebbal.starter.dto.CitizenReportResponseDTO(
+                r.id, r.description, r.status, r.createdAt, r.version)
+            FROM Report r
+            WHERE r.street.id = :streetId
+              AND (:status IS NULL OR r.status = :status)
+              AND (r.createdAt BETWEEN :startDate AND :endDate)
+              AND (r.createdAt < :cursorDate OR (r.createdAt = :cursorDate AND r.id < :cursorId))
+            ORDER BY r.createdAt DESC, r.id DESC
+            """)
+    List<CitizenReportResponseDTO> findCitizenReportsPage(
+            @Param("streetId") Long streetId,
+            @Param("status") ReportStatus status,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("cursorDate") LocalDate cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable pageable);
+
+    // Recent reports for the duplicate detector's window after a restart
+    @Query("""
+            SELECT new com.anistebbal.starter.dto.ReportDuplicateCandidate(
+                r.id, r.street.id, r.description, r.duplicateOfId, r.createdAt)
+            FROM Report r
+            WHERE r.createdAt >= :since
+            ORDER BY r.id
+            """)
+    List<ReportDuplicateCandidate> findDuplicateCandidatesSince(@Param("since") LocalDate since);
+
+    // Feeds the search index at startup; consumed inside a read-only transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new com.anistebbal.starter.dto.ReportSearchDocument(
+                r.id, r.description, r.status, r.createdAt, s.district.id)
+            FROM Report r JOIN r.street s
+            """)
+    Stream<ReportSearchDocument> streamSearchDocuments();
 
+    @Query("""
+            SELECT new com.anistebbal.starter.dto.ReportSearchDocument(
+                r.id, r.description, r.status, r.createdAt, s.district.id)
+            FROM Report r JOIN r.street s
+            WHERE r.id IN :ids
+            """)
+    List<ReportSearchDocument> findSearchDocuments(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+            SELECT new com.anistebbal.starter.dto.ReportResponseDTO(
+                r.id, r.description, r.status, r.createdAt, s.name, d.name, r.version, r.duplicateOfId)
+            FROM Report r JOIN r.street s JOIN s.district d
+            WHERE r.id IN :ids
+            """)
+    List<ReportResponseDTO> findResponsesByIds(@Param("ids") Collection<Long> ids);
 }
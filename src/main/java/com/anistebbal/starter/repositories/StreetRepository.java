@@ -1,11 +1,25 @@
 package com.anistebbal.starter.repositories;
 
 import com.anistebbal.starter.entities.Street;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface StreetRepository extends JpaRepository<Street, Long> {
     List<Street> findByDistrictId(Long districtId);
 
+    @EntityGraph("Street.withDistrict")
+    List<Street> findAllWithDistrictBy();
+
+    @EntityGraph("Street.withDistrict")
+    Optional<Street> findWithDistrictById(Long id);
+
+    @Query("SELECT s.id FROM Street s WHERE s.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
 }
@@ -0,0 +1,29 @@
+package com.anistebbal.starter.repositories;
+
+import com.anistebbal.starter.entities.UploadSession;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    // Held while completing or attaching, so a session is never used twice at once
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UploadSession s WHERE s.id = :id")
+    Optional<UploadSession> lockById(@Param("id") String id);
+
+    @Query("SELECT COUNT(s) FROM UploadSession s WHERE s.userId = :userId AND s.expiresAt > :now")
+    long countActiveByUserId(@Param("userId") Long userId, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UploadSession s WHERE s.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
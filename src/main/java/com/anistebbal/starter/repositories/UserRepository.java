@@ -1,18 +1,34 @@
 package com.anistebbal.starter.repositories;
 
 import com.anistebbal.starter.entities.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByPhone(String phone);
 
+    @EntityGraph("User.withStreet")
+    Optional<User> findWithStreetById(Long id);
+
     List<User> findByStreetId(Long streetId);
 
     List<User> findByUsername(String username);
 
     List<User> findByStreetDistrictId(Long districtId);
 
+    @Query("SELECT u.street.id FROM User u WHERE u.id = :id")
+    Optional<Long> findStreetIdById(@Param("id") Long id);
+
+    @Query("SELECT u.securityVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findSecurityVersionById(@Param("id") Long id);
+
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
 }
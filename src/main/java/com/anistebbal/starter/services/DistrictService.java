@@ -10,6 +10,7 @@ import com.anistebbal.starter.repositories.DistrictRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -23,7 +24,8 @@ public class DistrictService {
         @Autowired
         private CityRepository cityRepository;
 
-        // ✅ Get all districts for a given city
+        // ✅ Get all districts for a given city (city and streets fetched in the same query)
+        @Transactional(readOnly = true)
         public List<DistrictResponseDTO> getDistrictDTOsByCity(Long cityId) {
                 return districtRepository.findByCityId(cityId)
                                 .stream()
@@ -32,6 +34,7 @@ public class DistrictService {
         }
 
         // ✅ Create new district
+        @Transactional
         public DistrictResponseDTO createDistrict(String name, Long cityId) {
                 City city = cityRepository.findById(cityId)
                                 .orElseThrow(() -> new EntityNotFoundException("City not found"));
@@ -51,8 +54,9 @@ public class DistrictService {
         }
 
         // ✅ Update district name or city
+        @Transactional
         public DistrictResponseDTO updateDistrict(Long districtId, String newName, Long newCityId) {
-                District district = districtRepository.findById(districtId)
+                District district = districtRepository.findWithCityAndStreetsById(districtId)
                                 .orElseThrow(() -> new EntityNotFoundException("District not found"));
 
                 if (newName != null && !newName.trim().isEmpty()) {
@@ -0,0 +1,229 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.ReportDuplicateCandidate;
+import com.anistebbal.starter.entities.Report;
+import com.anistebbal.starter.repositories.ReportRepository;
+import com.anistebbal.starter.util.LshIndex;
+import com.anistebbal.starter.util.MinHash;
+import com.anistebbal.starter.util.TextTokenizer;
+import com.anistebbal.starter.util.TransactionCallbacks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flags new reports that repeat a recent report on the same street.
+ *
+ * Each street keeps a sliding window of recent reports as MinHash signatures
+ * of their description words, indexed with LSH. A new description is hashed
+ * once, looked up in its street's bands and compared only with the few
+ * candidates found there, so a check costs microseconds and never touches the
+ * database. A match above the threshold links the report to the canonical
+ * (first) report of that group.
+ *
+ * The window only learns about a report once its transaction commits. After
+ * a restart it is refilled from the reports of the last window's days.
+ */
+@Service
+public class DuplicateReportDetector {
+
+    private static final Logger log = LoggerFactory.getLogger(DuplicateReportDetector.class);
+
+    // 16 bands of 4 rows: pairs above ~0.5 similarity almost always share a band
+    private static final int BANDS = 16;
+    private static final int ROWS = 4;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${reports.duplicates.window-hours:72}")
+    private long windowHours = 72;
+
+    @Value("${reports.duplicates.threshold:0.6}")
+    private double threshold = 0.6;
+
+    private final MinHash minHash = new MinHash(BANDS * ROWS, 0x5eed_d0c5L);
+    private final Map<Long, StreetWindow> windows = new ConcurrentHashMap<>();
+
+    private Timer checkTimer;
+    private Counter flagged;
+
+    private record Arrival(long reportId, Instant at) {
+    }
+
+    // Guarded by its own monitor
+    private static final class StreetWindow {
+        private final LshIndex index = new LshIndex(BANDS, ROWS);
+        private final Map<Long, Long> canonicalOf = new HashMap<>();
+        private final ArrayDeque<Arrival> arrivals = new ArrayDeque<>();
+    }
+
+    @PostConstruct
+    void init() {
+        checkTimer = Timer.builder("reports.duplicates.check").register(meterRegistry);
+        flagged = Counter.builder("reports.duplicates.flagged").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        LocalDate since = LocalDate.now().minusDays(Duration.ofHours(windowHours).toDays() + 1);
+        List<ReportDuplicateCandidate> recent = reportRepository.findDuplicateCandidatesSince(since);
+        for (ReportDuplicateCandidate report : recent) {
+            remember(report.streetId(), report.id(), report.description(),
+                    report.duplicateOfId() != null ? report.duplicateOfId() : report.id(),
+                    report.createdAt().atStartOfDay(ZoneId.systemDefault()).toInstant());
+        }
+        log.info("Duplicate detector loaded {} reports created since {}", recent.size(), since);
+    }
+
+    /**
+     * The canonical report that this description probably repeats, or null.
+     * Only reports on the same street within the window are considered.
+     */
+    public Long findCanonical(Long streetId, String description) {
+        StreetWindow window = windows.get(streetId);
+        if (window == null) {
+            return null;
+        }
+        long started = System.nanoTime();
+        long[] signature = signature(description);
+        if (signature == null) {
+            return null;
+        }
+        Long canonical = null;
+        synchronized (window) {
+            evictExpired(window, Instant.now());
+            double best = threshold;
+            Long bestId = null;
+            for (Long candidate : window.index.candidates(signature)) {
+                double similarity = MinHash.similarity(signature, window.index.signature(candidate));
+                // Ties go to the older report
+                if (similarity > best || (similarity == best && (bestId == null || candidate < bestId))) {
+                    best = similarity;
+                    bestId = candidate;
+                }
+            }
+            if (bestId != null) {
+                canonical = window.canonicalOf.get(bestId);
+            }
+        }
+        checkTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        if (canonical != null) {
+            flagged.increment();
+        }
+        return canonical;
+    }
+
+    // Adds or refreshes a saved report once its transaction commits
+    public void recordSaved(Report report) {
+        Long streetId = report.getStreet().getId();
+        Long id = report.getId();
+        String description = report.getDescription();
+        Long canonical = report.getDuplicateOfId() != null ? report.getDuplicateOfId() : id;
+        TransactionCallbacks.afterCommit(() -> remember(streetId, id, description, canonical, Instant.now()));
+    }
+
+    public void recordDeleted(Report report) {
+        Long streetId = report.getStreet().getId();
+        Long id = report.getId();
+        TransactionCallbacks.afterCommit(() -> forget(streetId, id));
+    }
+
+    @Scheduled(fixedDelayString = "${reports.duplicates.sweep-millis:600000}")
+    public void sweep() {
+        Instant now = Instant.now();
+        windows.forEach((streetId, window) -> {
+            synchronized (window) {
+                evictExpired(window, now);
+                if (window.canonicalOf.isEmpty()) {
+                    windows.remove(streetId, window);
+                }
+            }
+        });
+    }
+
+    private void remember(Long streetId, Long id, String description, Long canonical, Instant at) {
+        long[] signature = signature(description);
+        if (signature == null) {
+            forget(streetId, id);
+            return;
+        }
+        while (true) {
+            StreetWindow window = windows.computeIfAbsent(streetId, key -> new StreetWindow());
+            synchronized (window) {
+                // The sweep may have dropped this window while we waited for it
+                if (windows.get(streetId) != window) {
+                    continue;
+                }
+                if (window.canonicalOf.put(id, canonical) == null) {
+                    window.arrivals.addLast(new Arrival(id, at));
+                }
+                window.index.put(id, signature);
+                return;
+            }
+        }
+    }
+
+    private void forget(Long streetId, Long id) {
+        StreetWindow window = windows.get(streetId);
+        if (window == null) {
+            return;
+        }
+        synchronized (window) {
+            remove(window, id);
+        }
+    }
+
+    private void evictExpired(StreetWindow window, Instant now) {
+        Instant cutoff = now.minus(Duration.ofHours(windowHours));
+        while (!window.arrivals.isEmpty() && window.arrivals.peekFirst().at().isBefore(cutoff)) {
+            remove(window, window.arrivals.pollFirst().reportId());
+        }
+    }
+
+    // When a canonical report leaves, the oldest remaining member of its group takes over
+    private static void remove(StreetWindow window, long id) {
+        window.index.remove(id);
+        if (window.canonicalOf.remove(id) == null) {
+            return;
+        }
+        Set<Long> orphans = new HashSet<>();
+        window.canonicalOf.forEach((member, canonical) -> {
+            if (canonical == id) {
+                orphans.add(member);
+            }
+        });
+        orphans.stream().min(Long::compare)
+                .ifPresent(successor -> orphans.forEach(member -> window.canonicalOf.put(member, successor)));
+    }
+
+    private long[] signature(String description) {
+        Set<String> words = new HashSet<>(TextTokenizer.tokenize(description));
+        return words.isEmpty() ? null : minHash.signature(words);
+    }
+}
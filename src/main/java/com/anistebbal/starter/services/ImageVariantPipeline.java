@@ -0,0 +1,298 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.ImageVariant;
+import com.anistebbal.starter.util.BoundedCache;
+import com.anistebbal.starter.util.ExifOrientation;
+import com.anistebbal.starter.util.TransactionCallbacks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders the PREVIEW and THUMBNAIL variants of stored report images in the
+ * background.
+ *
+ * New uploads are queued once their report commits. Work runs on a small
+ * bounded pool; when its queue is full the image is skipped rather than
+ * slowing the upload down, and is queued again the first time someone asks
+ * for one of its variants (the original is served meanwhile). An image is
+ * never queued twice at once, and one that cannot be decoded is not retried
+ * for an hour.
+ *
+ * Large photos are decoded with subsampling, straight to the smallest size
+ * at or above the preview's, so a 12 MP phone photo (4032x3024) is held as
+ * 1344x1008 rather than as a full-size raster. Variants are re-encoded
+ * JPEGs turned upright, with no EXIF (GPS position, camera details) carried
+ * over.
+ */
+@Service
+public class ImageVariantPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantPipeline.class);
+
+    @Autowired
+    private ReportImageStore imageStore;
+
+    @Autowired
+    private ReportImageStorage storage;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${reports.images.variants.workers:2}")
+    private int workers = 2;
+
+    @Value("${reports.images.variants.queue-capacity:200}")
+    private int queueCapacity = 200;
+
+    @Value("${reports.images.variants.jpeg-quality:0.8}")
+    private float jpegQuality = 0.8f;
+
+    // Refuses decompression bombs: a tiny file declaring a huge canvas
+    @Value("${reports.images.variants.max-pixels:60000000}")
+    private long maxPixels = 60_000_000;
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final BoundedCache<String, Boolean> failed = new BoundedCache<>(10_000, Duration.ofHours(1));
+
+    private ThreadPoolExecutor executor;
+    private Counter rejected;
+    private Timer renderTimer;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variant-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    // Leave the CPU to request threads when both want it
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("reports.images.variants.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        Gauge.builder("reports.images.variants.queued", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("reports.images.variants.saturation", executor,
+                e -> (double) (e.getActiveCount() + e.getQueue().size()) / (workers + queueCapacity))
+                .register(meterRegistry);
+        rejected = Counter.builder("reports.images.variants.rejected").register(meterRegistry);
+        renderTimer = Timer.builder("reports.images.variants.render").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Queues the image once the current transaction commits
+    public void generateAfterCommit(String imagePath) {
+        if (ReportImageStore.isContentHash(imagePath)) {
+            TransactionCallbacks.afterCommit(() -> submit(imagePath));
+        }
+    }
+
+    // Never blocks; false when the image was not queued (pool full, or it failed recently)
+    public boolean submit(String hash) {
+        if (failed.get(hash) != null) {
+            return false;
+        }
+        if (!inFlight.add(hash)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(hash);
+                } finally {
+                    inFlight.remove(hash);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(hash);
+            rejected.increment();
+            log.debug("Variant queue full ({} queued), skipping image {}", executor.getQueue().size(), hash);
+            return false;
+        }
+    }
+
+    void generate(String hash) {
+        long started = System.nanoTime();
+        Path download = null;
+        try {
+            if (hasAllVariants(hash)) {
+                return;
+            }
+            String key = ReportImageStore.keyOf(hash);
+            Path original = storage.localFile(key).orElse(null);
+            if (original == null) {
+                // Image readers need to seek, so a remote original is fetched to scratch space first
+                download = imageStore.newTempFile();
+                long size = storage.size(key).orElseThrow(() -> new NoSuchFileException(key));
+                try (InputStream in = storage.open(key, 0, size)) {
+                    Files.copy(in, download, StandardCopyOption.REPLACE_EXISTING);
+                }
+                original = download;
+            }
+            int orientation;
+            try (InputStream in = Files.newInputStream(original)) {
+                orientation = ExifOrientation.read(in);
+            }
+            BufferedImage source = decode(original, ImageVariant.PREVIEW.getMaxSide());
+
+            // Largest first, each one scaled from the previous, which is both cheaper and sharper
+            for (ImageVariant variant : ImageVariant.values()) {
+                if (variant == ImageVariant.ORIGINAL) {
+                    continue;
+                }
+                source = scale(source, variant.getMaxSide());
+                Path rendered = imageStore.newTempFile();
+                try {
+                    writeJpeg(ExifOrientation.apply(source, orientation), rendered);
+                    if (!imageStore.saveVariant(hash, variant, rendered)) {
+                        return;
+                    }
+                } finally {
+                    Files.deleteIfExists(rendered);
+                }
+            }
+            meterRegistry.counter("reports.images.variants.generated", "result", "ok").increment();
+        } catch (IOException | RuntimeException e) {
+            failed.put(hash, Boolean.TRUE);
+            meterRegistry.counter("reports.images.variants.generated", "result", "failed").increment();
+            log.warn("Could not render variants of image {}: {}", hash, e.getMessage());
+        } finally {
+            renderTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            deleteQuietly(download);
+        }
+    }
+
+    private boolean hasAllVariants(String hash) throws IOException {
+        for (ImageVariant variant : ImageVariant.values()) {
+            if (storage.size(ReportImageStore.variantKey(hash, variant)).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    // Decodes every n-th pixel, keeping the longest side at or above minSide (the step rounds down)
+    BufferedImage decode(Path file, int minSide) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("not a supported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IOException("image is " + width + "x" + height + ", over the pixel limit");
+                }
+                int step = Math.max(1, Math.max(width, height) / minSide);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halves with bilinear filtering until one step from the target, then lands on it exactly
+    static BufferedImage scale(BufferedImage source, int maxSide) {
+        double factor = Math.min(1.0, (double) maxSide / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * factor));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * factor));
+
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = redraw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        return redraw(current, targetWidth, targetHeight);
+    }
+
+    // Always yields opaque RGB, so transparent PNGs become JPEG-safe on a white background
+    private static BufferedImage redraw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    // Writes pixels only: with no metadata passed in, nothing from the upload's EXIF survives
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.anistebbal.starter.services;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Delivers invalidations synchronously to listeners in the same JVM
+public class InJvmUserInvalidationBus implements UserInvalidationBus {
+
+    private final List<Consumer<UserInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(UserInvalidation invalidation) {
+        for (Consumer<UserInvalidation> listener : listeners) {
+            listener.accept(invalidation);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<UserInvalidation> listener) {
+        listeners.add(listener);
+    }
+}
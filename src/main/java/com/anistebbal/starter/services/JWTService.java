@@ -1,29 +1,66 @@
 package com.anistebbal.starter.services;
 
 import com.anistebbal.starter.entities.User;
+import com.anistebbal.starter.util.BoundedCache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 import org.springframework.beans.factory.annotation.Value;
 
 @Service
 public class JWTService {
 
+    private static final long TOKEN_VALIDITY_MILLIS = 1000 * 60 * 60 * 24; // 1 day
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
     @Value("${jwt.secret}")
     private String secretKey;
     // private final String secretKey =
     // "LxEThLgZKRdYhylBWzWGMqM+P3Of50d9EvNpU9Yy1Fs=";
     // Base64-encoded 32-char key
 
+    @Value("${jwt.verified-cache.max-entries:10000}")
+    private int verifiedCacheMaxEntries;
+
+    // Key and parser are immutable and thread-safe, so build them once
+    private SecretKey key;
+    private JwtParser parser;
+
+    // Recently verified tokens keyed by SHA-256 digest, expiring with the token
+    private BoundedCache<String, Claims> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        key = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parser().verifyWith(key).build();
+        verifiedTokens = new BoundedCache<>(verifiedCacheMaxEntries, Duration.ofMillis(TOKEN_VALIDITY_MILLIS));
+    }
+
     // Generate token with full user data
     public String generateToken(User user) {
         Map<String, Object> claims = new HashMap<>();
@@ -31,19 +68,39 @@ public class JWTService {
         claims.put("username", user.getUsername());
         claims.put("phone", user.getPhone());
         claims.put("role", user.getRole());
+        claims.put("sv", user.getSecurityVersion());
+        if (user.getStreet() != null) {
+            claims.put("streetId", user.getStreet().getId());
+        }
 
         return Jwts.builder()
                 .claims(claims)
+                .id(UUID.randomUUID().toString())
                 .subject(user.getPhone())
                 .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24)) // 1 day
-                .signWith(getKey())
+                .expiration(new Date(System.currentTimeMillis() + TOKEN_VALIDITY_MILLIS))
+                .signWith(key)
                 .compact();
     }
 
-    private SecretKey getKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Verifies the signature and expiry of a token exactly once and returns its
+     * claims. Tokens seen recently are answered from memory without any crypto.
+     * Throws a {@link io.jsonwebtoken.JwtException} if the token is invalid.
+     */
+    public Claims verify(String token) {
+        String digest = digest(token);
+        Claims cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Date expiration = claims.getExpiration();
+        long expiresAt = expiration != null ? expiration.getTime()
+                : System.currentTimeMillis() + TOKEN_VALIDITY_MILLIS;
+        verifiedTokens.put(digest, claims, expiresAt);
+        return claims;
     }
 
     public String extractPhone(String token) {
@@ -63,28 +120,25 @@ public class JWTService {
     }
 
     public boolean validateToken(String token, UserDetails userDetails) {
-        String phone = extractPhone(token);
-        return phone.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        return validateToken(verify(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean validateToken(Claims claims, UserDetails userDetails) {
+        String phone = claims.getSubject();
+        return phone != null && phone.equals(userDetails.getUsername()) && !isTokenExpired(claims);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private boolean isTokenExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.before(new Date());
     }
 
     private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(verify(token));
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private static String digest(String token) {
+        byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(hash);
     }
 }
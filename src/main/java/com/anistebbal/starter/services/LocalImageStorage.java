@@ -0,0 +1,135 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.util.UrlSigner;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Keeps images under one directory on this node, one file per key. Keys
+ * written by {@link ReportImageStore} are already sharded ("ab/cd/<hash>"),
+ * so the tree stays shallow and a directory can be copied into a bucket
+ * as-is.
+ *
+ * Files appear atomically, so readers never see half an image. Presigned URLs
+ * point at this app's /api/reports/images/signed endpoint.
+ */
+public class LocalImageStorage implements ReportImageStorage {
+
+    public static final String SIGNED_PATH = "/api/reports/images/signed";
+
+    private Path root;
+    private final UrlSigner signer;
+
+    public LocalImageStorage(Path root, UrlSigner signer) {
+        this.root = root.toAbsolutePath().normalize();
+        this.signer = signer;
+    }
+
+    @Override
+    public void put(String key, Path staged, String contentType) throws IOException {
+        Path target = pathOf(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(staged, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Staged on another file system: copy next to the target first, then rename
+            Path sibling = Files.createTempFile(target.getParent(), ".put-", ".part");
+            try {
+                Files.copy(staged, sibling, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(sibling, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(sibling);
+            }
+        }
+    }
+
+    @Override
+    public OptionalLong size(String key) throws IOException {
+        try {
+            return OptionalLong.of(Files.size(pathOf(key)));
+        } catch (NoSuchFileException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    @Override
+    public InputStream open(String key, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(pathOf(key), StandardOpenOption.READ);
+        channel.position(offset);
+        return new FilterInputStream(Channels.newInputStream(channel)) {
+            private long remaining = length;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int value = super.read();
+                if (value >= 0) {
+                    remaining--;
+                }
+                return value;
+            }
+
+            @Override
+            public int read(byte[] buffer, int off, int len) throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int read = super.read(buffer, off, (int) Math.min(len, remaining));
+                if (read > 0) {
+                    remaining -= read;
+                }
+                return read;
+            }
+        };
+    }
+
+    // The path is returned whether or not the file exists yet
+    @Override
+    public Optional<Path> localFile(String key) {
+        return Optional.of(pathOf(key));
+    }
+
+    @Override
+    public URI presign(String key, Duration ttl) {
+        long expires = signer.expiresAfter(ttl.toSeconds());
+        return URI.create(SIGNED_PATH
+                + "?key=" + URLEncoder.encode(key, StandardCharsets.UTF_8)
+                + "&expires=" + expires
+                + "&signature=" + signer.sign(key, expires));
+    }
+
+    @Override
+    public void delete(Collection<String> keys) throws IOException {
+        for (String key : keys) {
+            Files.deleteIfExists(pathOf(key));
+        }
+    }
+
+    // Keys come from the database, but a legacy one must still not escape the image directory
+    private Path pathOf(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Invalid image path.");
+        }
+        return path;
+    }
+}
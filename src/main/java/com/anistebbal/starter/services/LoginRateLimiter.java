@@ -0,0 +1,73 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.exceptions.RateLimitExceededException;
+import com.anistebbal.starter.util.StripedRateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles login attempts per phone number and per client IP.
+ *
+ * Runs before {@link UserService#verify} so rejected attempts cost neither a
+ * DB lookup nor a password hash.
+ */
+@Service
+public class LoginRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginRateLimiter.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${security.login.rate-limit.per-phone:5}")
+    private int attemptsPerPhone;
+
+    @Value("${security.login.rate-limit.per-ip:30}")
+    private int attemptsPerIp;
+
+    @Value("${security.login.rate-limit.period-seconds:60}")
+    private long periodSeconds;
+
+    @Value("${security.login.rate-limit.max-tracked-keys:100000}")
+    private int maxTrackedKeys;
+
+    private StripedRateLimiter byPhone;
+    private StripedRateLimiter byIp;
+    private Counter rejections;
+
+    @PostConstruct
+    void init() {
+        byPhone = new StripedRateLimiter(attemptsPerPhone, attemptsPerPhone, periodSeconds, TimeUnit.SECONDS,
+                maxTrackedKeys);
+        byIp = new StripedRateLimiter(attemptsPerIp, attemptsPerIp, periodSeconds, TimeUnit.SECONDS,
+                maxTrackedKeys);
+        rejections = Counter.builder("auth.login.throttled").register(meterRegistry);
+    }
+
+    public void checkAttempt(String phone, String clientIp) {
+        if (clientIp != null) {
+            reject(byIp.tryAcquire(clientIp), "IP", clientIp);
+        }
+        if (phone != null) {
+            reject(byPhone.tryAcquire(phone), "phone", phone);
+        }
+    }
+
+    private void reject(long waitNanos, String kind, String key) {
+        if (waitNanos == 0) {
+            return;
+        }
+        rejections.increment();
+        log.warn("Login throttled for {} {}", kind, key);
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+        throw new RateLimitExceededException("Too many login attempts. Please try again later.", retryAfter);
+    }
+}
@@ -0,0 +1,112 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.exceptions.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated, bounded pool for password hash checks.
+ *
+ * BCrypt is deliberately slow, so running it on Tomcat threads lets a login
+ * burst starve every other endpoint. Work is queued up to a fixed limit; beyond
+ * that (or if a check waits too long) callers fail fast with a
+ * {@link ServiceOverloadedException} instead of holding a request thread.
+ */
+@Service
+public class LoginWorkerPool {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginWorkerPool.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${security.login.workers:0}")
+    private int workers;
+
+    @Value("${security.login.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${security.login.timeout-millis:5000}")
+    private long timeoutMillis;
+
+    @Value("${security.login.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+    private Counter rejections;
+
+    @PostConstruct
+    void init() {
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-worker-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("auth.login.pool.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        Gauge.builder("auth.login.pool.queued", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("auth.login.pool.saturation", executor,
+                e -> (double) (e.getActiveCount() + e.getQueue().size()) / (threads + queueCapacity))
+                .register(meterRegistry);
+        rejections = Counter.builder("auth.login.pool.rejected").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public <T> T run(Supplier<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task::get);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            log.warn("Login pool saturated ({} queued), rejecting attempt", executor.getQueue().size());
+            throw new ServiceOverloadedException("Too many login attempts in progress. Please retry shortly.",
+                    retryAfterSeconds);
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejections.increment();
+            throw new ServiceOverloadedException("Login timed out. Please retry shortly.", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException("Login interrupted. Please retry shortly.", retryAfterSeconds);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -2,25 +2,60 @@ package com.anistebbal.starter.services;
 
 import com.anistebbal.starter.entities.User;
 import com.anistebbal.starter.repositories.UserRepository;
+import com.anistebbal.starter.util.BoundedCache;
+import com.anistebbal.starter.util.CacheMetrics;
 import com.anistebbal.starter.config.UserPrincipal;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+
 @Service
 public class MyUserDetailsService implements UserDetailsService {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserInvalidationBus userInvalidations;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${security.user-cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${security.user-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    // Principals keyed by phone; evicted through UserInvalidationBus when a user changes
+    private BoundedCache<String, UserPrincipal> principals;
+
+    @PostConstruct
+    void init() {
+        principals = new BoundedCache<>(maxEntries, Duration.ofSeconds(ttlSeconds));
+        CacheMetrics.bind(meterRegistry, "user-details", principals);
+        userInvalidations.subscribe(invalidation -> invalidation.phones().forEach(principals::invalidate));
+    }
+
     @Override
     public UserDetails loadUserByUsername(String phone) throws UsernameNotFoundException {
-        // Assume you have a method: Optional<User> findByPhone(String phone);
+        UserPrincipal cached = principals.get(phone);
+        if (cached != null) {
+            return cached;
+        }
+
         User user = userRepository.findByPhone(phone)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with phone: " + phone));
 
-        return new UserPrincipal(user); //
+        UserPrincipal principal = new UserPrincipal(user);
+        principals.put(phone, principal);
+        return principal;
     }
 }
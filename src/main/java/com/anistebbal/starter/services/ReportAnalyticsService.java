@@ -0,0 +1,208 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.AnalyticsDimension;
+import com.anistebbal.starter.dto.AnalyticsQueryDTO;
+import com.anistebbal.starter.dto.ReportAnalyticsGroupDTO;
+import com.anistebbal.starter.dto.TimeBucket;
+import com.anistebbal.starter.entities.ReportStatus;
+import com.anistebbal.starter.util.CacheMetrics;
+import com.anistebbal.starter.util.CoalescingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Grouped report counts for dashboards, answered from the daily rollup.
+ *
+ * Each request becomes one aggregate query over report_daily_rollup whose
+ * GROUP BY holds exactly the requested dimensions. Week and month buckets are
+ * folded from daily groups in memory, which keeps the SQL portable; the rollup
+ * already bounds the row count to days x groups. Results are cached under a
+ * normalized key, so "status,district" and "DISTRICT,status" share an entry,
+ * and are dropped once a report change inside their range, or a rollup
+ * rebuild overlapping it, commits.
+ */
+@Service
+public class ReportAnalyticsService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${reports.analytics.grouped-cache.max-entries:500}")
+    private int maxEntries;
+
+    @Value("${reports.analytics.grouped-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private CoalescingCache<AnalyticsKey, List<ReportAnalyticsGroupDTO>> results;
+
+    record AnalyticsKey(LocalDate startDate, LocalDate endDate, Long districtId,
+            Set<AnalyticsDimension> dimensions, TimeBucket bucket) {
+        boolean covers(LocalDate day) {
+            return !day.isBefore(startDate) && !day.isAfter(endDate);
+        }
+
+        boolean overlaps(LocalDate start, LocalDate end) {
+            return !start.isAfter(endDate) && !end.isBefore(startDate);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        results = new CoalescingCache<>(maxEntries, Duration.ofSeconds(ttlSeconds));
+        CacheMetrics.bind(meterRegistry, "report-analytics-grouped", results.entries());
+    }
+
+    public List<ReportAnalyticsGroupDTO> getGroupedAnalytics(AnalyticsQueryDTO query) {
+        AnalyticsKey key = normalize(query);
+        return results.get(key, () -> List.copyOf(load(key)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReportChanged(ReportChanged event) {
+        if (event.day() != null) {
+            results.invalidateIf(key -> key.covers(event.day()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRollupRebuilt(ReportRollupRebuilt event) {
+        results.invalidateIf(key -> key.overlaps(event.startDate(), event.endDate()));
+    }
+
+    static AnalyticsKey normalize(AnalyticsQueryDTO query) {
+        if (query.getStartDate() == null || query.getEndDate() == null) {
+            throw new IllegalArgumentException("Start date and end date are required.");
+        }
+        if (query.getStartDate().isAfter(query.getEndDate())) {
+            throw new IllegalArgumentException("Start date must not be after end date.");
+        }
+        Set<AnalyticsDimension> dimensions = EnumSet.noneOf(AnalyticsDimension.class);
+        if (query.getGroupBy() != null) {
+            query.getGroupBy().stream()
+                    .filter(value -> value != null && !value.isBlank())
+                    .map(AnalyticsDimension::from)
+                    .forEach(dimensions::add);
+        }
+        TimeBucket bucket = query.getBucket() == null || query.getBucket().isBlank()
+                ? null
+                : TimeBucket.from(query.getBucket());
+        return new AnalyticsKey(query.getStartDate(), query.getEndDate(), query.getDistrictId(),
+                Set.copyOf(dimensions), bucket);
+    }
+
+    private List<ReportAnalyticsGroupDTO> load(AnalyticsKey key) {
+        boolean byDistrict = key.dimensions().contains(AnalyticsDimension.DISTRICT);
+        boolean byStreet = key.dimensions().contains(AnalyticsDimension.STREET);
+        boolean byStatus = key.dimensions().contains(AnalyticsDimension.STATUS);
+        boolean byDay = key.bucket() != null;
+        boolean joinLocation = byDistrict || byStreet || key.districtId() != null;
+
+        // Only whitelisted column expressions are concatenated; values are bound as parameters
+        List<String> groupColumns = new ArrayList<>();
+        if (byDistrict) {
+            groupColumns.add("d.id");
+            groupColumns.add("d.name");
+        }
+        if (byStreet) {
+            groupColumns.add("s.id");
+            groupColumns.add("s.name");
+        }
+        if (byStatus) {
+            groupColumns.add("r.status");
+        }
+        if (byDay) {
+            groupColumns.add("r.day");
+        }
+
+        StringBuilder jpql = new StringBuilder("SELECT ");
+        groupColumns.forEach(column -> jpql.append(column).append(", "));
+        jpql.append("SUM(r.reportCount), ")
+                .append("SUM(CASE WHEN r.status = :resolved THEN r.reportCount ELSE 0 END), ")
+                .append("SUM(CASE WHEN r.status = :pending THEN r.reportCount ELSE 0 END), ")
+                .append("SUM(r.duplicateCount) ")
+                .append("FROM ReportDailyRollup r ");
+        if (joinLocation) {
+            jpql.append("JOIN Street s ON s.id = r.streetId JOIN s.district d ");
+        }
+        jpql.append("WHERE r.day BETWEEN :startDate AND :endDate ");
+        if (key.districtId() != null) {
+            jpql.append("AND d.id = :districtId ");
+        }
+        if (!groupColumns.isEmpty()) {
+            String columns = String.join(", ", groupColumns);
+            jpql.append("GROUP BY ").append(columns).append(" ORDER BY ").append(columns);
+        }
+
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql.toString(), Object[].class)
+                .setParameter("resolved", ReportStatus.RESOLVED)
+                .setParameter("pending", ReportStatus.PENDING)
+                .setParameter("startDate", key.startDate())
+                .setParameter("endDate", key.endDate());
+        if (key.districtId() != null) {
+            query.setParameter("districtId", key.districtId());
+        }
+
+        // Rows come ordered by group then day, so folding days into buckets keeps that order
+        Map<List<Object>, ReportAnalyticsGroupDTO> groups = new LinkedHashMap<>();
+        for (Object[] row : query.getResultList()) {
+            int i = 0;
+            ReportAnalyticsGroupDTO group = new ReportAnalyticsGroupDTO();
+            if (byDistrict) {
+                group.setDistrictId((Long) row[i++]);
+                group.setDistrictName((String) row[i++]);
+            }
+            if (byStreet) {
+                group.setStreetId((Long) row[i++]);
+                group.setStreetName((String) row[i++]);
+            }
+            if (byStatus) {
+                group.setStatus((ReportStatus) row[i++]);
+            }
+            if (byDay) {
+                group.setBucketStart(key.bucket().startOf((LocalDate) row[i++]));
+            }
+            long total = toLong(row[i++]);
+            long resolved = toLong(row[i++]);
+            long pending = toLong(row[i++]);
+            long duplicates = toLong(row[i]);
+
+            List<Object> groupKey = List.of(
+                    String.valueOf(group.getDistrictId()), String.valueOf(group.getStreetId()),
+                    String.valueOf(group.getStatus()), String.valueOf(group.getBucketStart()));
+            ReportAnalyticsGroupDTO merged = groups.putIfAbsent(groupKey, group);
+            ReportAnalyticsGroupDTO target = merged != null ? merged : group;
+            target.setTotalReports(target.getTotalReports() + total);
+            target.setResolvedReports(target.getResolvedReports() + resolved);
+            target.setPendingReports(target.getPendingReports() + pending);
+            target.setDuplicateReports(target.getDuplicateReports() + duplicates);
+        }
+
+        groups.values().forEach(group -> group.setResolutionRate(group.getTotalReports() > 0
+                ? ((double) group.getResolvedReports() / group.getTotalReports()) * 100
+                : 0.0));
+        return new ArrayList<>(groups.values());
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+}
@@ -0,0 +1,11 @@
+package com.anistebbal.starter.services;
+
+import java.time.LocalDate;
+
+/**
+ * Published by {@link ReportService} whenever a report is created, edited,
+ * changes status or is deleted. {@code day} is the report's creation date,
+ * i.e. the day whose aggregates the change affects.
+ */
+public record ReportChanged(Long reportId, LocalDate day) {
+}
@@ -0,0 +1,327 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.ImageUrlDTO;
+import com.anistebbal.starter.dto.ImageVariant;
+import com.anistebbal.starter.dto.ReportImageRef;
+import com.anistebbal.starter.entities.ReportImage;
+import com.anistebbal.starter.repositories.ReportImageRepository;
+import com.anistebbal.starter.repositories.ReportRepository;
+import com.anistebbal.starter.util.UrlSigner;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Serves report images from the image storage backend.
+ *
+ * The body never passes through the heap. Local files are handed to Tomcat's
+ * sendfile when large, which has the kernel copy them to the socket after the
+ * request returns, and otherwise go through FileChannel.transferTo. A remote
+ * backend answers with a redirect to a short-lived presigned URL, so the
+ * bytes skip the app node altogether (or, with reports.images.redirect=false,
+ * they are streamed through). A single byte range (Range, honoured only while
+ * If-Range still matches) is served as 206; multiple ranges are answered with
+ * the whole file, which HTTP allows.
+ *
+ * The ETag is the content hash, so it is strong and needs no read. The URL
+ * /api/reports/{id}/image can show a different image after the report is
+ * edited, so it is only cacheable for good when the client pins it with
+ * ?v=<imagePath>; otherwise clients revalidate, which costs a 304.
+ *
+ * A PREVIEW or THUMBNAIL that has not been rendered yet is answered with the
+ * original (never cached for good) and queued for rendering, so asking for a
+ * variant always returns an image.
+ */
+@Service
+public class ReportImageService {
+
+    // Request attributes of Tomcat's sendfile support (see its DefaultServlet)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private ReportImageRepository imageRepository;
+
+    @Autowired
+    private ReportImageStorage storage;
+
+    @Autowired
+    private ImageVariantPipeline imageVariants;
+
+    @Autowired
+    private UrlSigner imageUrlSigner;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${reports.images.max-age-seconds:31536000}")
+    private long maxAgeSeconds = 31_536_000;
+
+    // Below this, a plain transferTo is cheaper than setting up sendfile
+    @Value("${reports.images.sendfile-min-bytes:49152}")
+    private long sendfileMinBytes = 48 * 1024;
+
+    @Value("${reports.images.url-ttl-seconds:300}")
+    private long urlTtlSeconds = 300;
+
+    // Off: stream remote images through this node instead of redirecting to the backend
+    @Value("${reports.images.redirect:true}")
+    private boolean redirectToStorage = true;
+
+    private record ByteRange(long start, long end) {
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    // What is actually sent: the requested variant, or the original standing in for it
+    private record Selection(String key, String etag, MediaType contentType, ImageVariant served, long length) {
+    }
+
+    // Admins may see any report's image; citizens the same reports they may edit
+    public ReportImageRef locate(Long reportId, Long userId, Long streetId, boolean admin) {
+        ReportImageRef image = (admin
+                ? reportRepository.findImageRef(reportId)
+                : reportRepository.findAuthorizedImageRefForCitizen(reportId, userId, streetId))
+                .orElseThrow(() -> new EntityNotFoundException("Report not found"));
+        if (image.imagePath() == null) {
+            throw new EntityNotFoundException("Report has no image");
+        }
+        return image;
+    }
+
+    public void serve(ReportImageRef image, ImageVariant variant, String pinnedVersion,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Selection selection = select(image, variant);
+        if (redirectToStorage && storage.localFile(selection.key()).isEmpty()) {
+            // The redirect must not be cached for longer than the URL it points at lives
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=" + urlTtlSeconds / 2);
+            response.sendRedirect(storage.presign(selection.key(), Duration.ofSeconds(urlTtlSeconds)).toString());
+            count("redirected", selection.served());
+            return;
+        }
+        // Private: the image is only visible to some users, so shared caches must not keep it
+        boolean pinned = selection.etag() != null && selection.served() == variant
+                && image.imagePath().equals(pinnedVersion);
+        send(selection, pinned ? "private, max-age=" + maxAgeSeconds + ", immutable" : "private, no-cache",
+                request, response);
+    }
+
+    // A short-lived URL for clients that cannot send a token, such as an <img> tag
+    public ImageUrlDTO imageUrl(ReportImageRef image, ImageVariant variant) throws IOException {
+        Selection selection = select(image, variant);
+        Duration ttl = Duration.ofSeconds(urlTtlSeconds);
+        return new ImageUrlDTO(storage.presign(selection.key(), ttl).toString(), selection.served(),
+                Instant.now().plus(ttl));
+    }
+
+    // Answers the presigned URLs of local storage; the signature stands in for authorization
+    public void serveSigned(String key, long expires, String signature,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (key == null || !imageUrlSigner.verify(key, expires, signature)) {
+            throw new EntityNotFoundException("Image not found");
+        }
+        String name = key.substring(key.lastIndexOf('/') + 1);
+        String hash = name.length() >= 64 && ReportImageStore.isContentHash(name.substring(0, 64))
+                ? name.substring(0, 64) : null;
+        MediaType contentType;
+        String etag = null;
+        if (hash == null) {
+            contentType = contentType(new ReportImageRef(name, null));
+        } else if (name.length() == 64) {
+            String stored = imageRepository.findById(hash).map(ReportImage::getContentType).orElse(null);
+            contentType = contentType(new ReportImageRef(hash, stored));
+            etag = "\"" + hash + "\"";
+        } else {
+            contentType = MediaType.IMAGE_JPEG;
+            etag = "\"" + name.substring(0, name.length() - ".jpg".length()) + "\"";
+        }
+        long length = storage.size(key).orElseThrow(() -> new EntityNotFoundException("Image not found"));
+        long remaining = Math.max(0, expires - Instant.now().getEpochSecond());
+        send(new Selection(key, etag, contentType, ImageVariant.ORIGINAL, length),
+                "private, max-age=" + remaining, request, response);
+    }
+
+    // The requested variant when it has been rendered; otherwise the original, and the render is queued
+    private Selection select(ReportImageRef image, ImageVariant variant) throws IOException {
+        String imagePath = image.imagePath();
+        boolean contentAddressed = ReportImageStore.isContentHash(imagePath);
+        if (variant != ImageVariant.ORIGINAL && contentAddressed) {
+            String key = ReportImageStore.variantKey(imagePath, variant);
+            OptionalLong size = storage.size(key);
+            if (size.isPresent()) {
+                return new Selection(key, "\"" + imagePath + "." + variant.getSuffix() + "\"",
+                        MediaType.IMAGE_JPEG, variant, size.getAsLong());
+            }
+            imageVariants.submit(imagePath);
+        }
+        String key = ReportImageStore.keyOf(imagePath);
+        long length = storage.size(key).orElseThrow(() -> new EntityNotFoundException("Image not found"));
+        return new Selection(key, contentAddressed ? "\"" + imagePath + "\"" : null, contentType(image),
+                ImageVariant.ORIGINAL, length);
+    }
+
+    private void send(Selection selection, String cacheControl,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String etag = selection.etag();
+        long length = selection.length();
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        // Should a document slip through anyway, it gets no script and no access to this origin
+        response.setHeader("Content-Security-Policy", "sandbox");
+        if (etag != null) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+
+        if (etag != null && matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            count("not_modified", selection.served());
+            return;
+        }
+
+        ByteRange range = requestedRange(request, etag, length);
+        if (range == UNSATISFIABLE) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            count("unsatisfiable", selection.served());
+            return;
+        }
+
+        response.setContentType(selection.contentType().toString());
+        if (MediaType.APPLICATION_OCTET_STREAM.equals(selection.contentType())) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment");
+        }
+        if (range != null) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE,
+                    "bytes " + range.start() + "-" + range.end() + "/" + length);
+        } else {
+            range = new ByteRange(0, length - 1);
+        }
+        response.setContentLengthLong(range.length());
+        count(range.length() < length ? "partial" : "full", selection.served());
+
+        if (!"HEAD".equals(request.getMethod()) && range.length() > 0) {
+            Optional<Path> file = storage.localFile(selection.key());
+            if (file.isPresent()) {
+                transfer(file.get(), range, request, response);
+            } else {
+                try (InputStream in = storage.open(selection.key(), range.start(), range.length())) {
+                    in.transferTo(response.getOutputStream());
+                }
+            }
+        }
+    }
+
+    private void transfer(Path file, ByteRange range, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (range.length() >= sendfileMinBytes && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, range.start());
+            request.setAttribute(SENDFILE_END, range.end() + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = range.start();
+            long remaining = range.length();
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                // Stored images never change, so a short file means it was collected mid-read
+                if (sent <= 0) {
+                    throw new IOException("Image " + file.getFileName() + " ended early");
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    // Null means "send the whole file": no Range, an unsupported form, or a stale If-Range
+    private static ByteRange requestedRange(HttpServletRequest request, String etag, long length) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                return suffix <= 0 || length == 0 ? UNSATISFIABLE
+                        : new ByteRange(Math.max(0, length - suffix), length - 1);
+            }
+            long start = Long.parseLong(spec.substring(0, dash));
+            long end = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+            if (start < 0 || end < start) {
+                return null;
+            }
+            return start >= length ? UNSATISFIABLE : new ByteRange(start, Math.min(end, length - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // If-None-Match uses weak comparison, so a W/ prefix still matches
+    private static boolean matchesAny(String header, String etag) {
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Uploaded content types come from the client, so only raster image types are passed through
+    private static MediaType contentType(ReportImageRef image) {
+        String declared = image.contentType() != null
+                ? image.contentType()
+                : MediaTypeFactory.getMediaType(image.imagePath()).map(MediaType::toString).orElse(null);
+        return ReportImageStore.isRasterImage(declared)
+                ? MediaType.parseMediaType(declared)
+                : MediaType.APPLICATION_OCTET_STREAM;
+    }
+
+    private void count(String result, ImageVariant variant) {
+        meterRegistry.counter("reports.images.served", "result", result, "variant", variant.getSuffix())
+                .increment();
+    }
+}
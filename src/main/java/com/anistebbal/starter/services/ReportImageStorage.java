@@ -0,0 +1,48 @@
+package com.anistebbal.starter.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Where report image bytes live, addressed by key ("ab/cd/<sha256>" and its
+ * variants, or a pre-hashing flat file name).
+ *
+ * {@link ReportImageStore} decides what is stored and when it may go; a
+ * backend only moves bytes. The default {@link LocalImageStorage} keeps them
+ * on this node's disk; {@link S3ImageStorage} puts them in an S3-compatible
+ * bucket so any number of nodes can share them. Both stream in both
+ * directions and never hold a whole image in memory.
+ */
+public interface ReportImageStorage {
+
+    /**
+     * Stores a fully written local file under key, replacing any previous
+     * object. The backend may move the file; callers delete it if it is still
+     * there afterwards.
+     */
+    void put(String key, Path staged, String contentType) throws IOException;
+
+    // Size in bytes, or empty when there is no such object
+    OptionalLong size(String key) throws IOException;
+
+    // length bytes from offset; throws NoSuchFileException when the object is missing
+    InputStream open(String key, long offset, long length) throws IOException;
+
+    /**
+     * The object as a file on this node, when the backend keeps it on local
+     * disk. Lets callers use zero-copy transfers instead of {@link #open}.
+     */
+    Optional<Path> localFile(String key);
+
+    // A URL that reads the object without further authentication until ttl runs out
+    URI presign(String key, Duration ttl);
+
+    // Missing keys are ignored
+    void delete(Collection<String> keys) throws IOException;
+}
@@ -0,0 +1,313 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.ImageVariant;
+import com.anistebbal.starter.entities.ReportImage;
+import com.anistebbal.starter.repositories.ReportImageRepository;
+import com.anistebbal.starter.util.TransactionCallbacks;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed storage for report images.
+ *
+ * An upload is streamed through SHA-256 into a local staging file, then put
+ * into the {@link ReportImageStorage} backend under {@code ab/cd/<hash>}, so
+ * no directory (or listing prefix) holds more than a few hundred entries
+ * however many images there are. The same bytes uploaded twice are stored
+ * once: report_image counts the reports pointing at each object, and the
+ * object is deleted after the last of them lets go. Report.imagePath holds
+ * the hash.
+ *
+ * Attaching uploads the object first, then counts its reference under the
+ * image row's lock and confirms the object is still there; collecting
+ * deletes the object only while holding that lock with no references left,
+ * so an object can never disappear under a committed report. Collection
+ * runs on a background thread, since deleting from a remote backend is a
+ * network call; a sweep picks up anything a restart interrupted. Keys
+ * written before this store existed (flat "UUID_name" files) are still
+ * served and deleted as before.
+ *
+ * Downscaled variants sit next to the original as {@code <hash>.<variant>.jpg}.
+ * They are derived from the bytes, so reports sharing an image share them
+ * too, and they are collected with the original.
+ */
+@Service
+public class ReportImageStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportImageStore.class);
+
+    private static final Pattern CONTENT_HASH = Pattern.compile("[0-9a-f]{64}");
+
+    // Formats a browser can only show as a picture; SVG is left out because it can carry script
+    private static final Set<String> RASTER_TYPES = Set.of(
+            "image/jpeg", "image/png", "image/webp", "image/gif", "image/heic", "image/heif");
+
+    @Autowired
+    private ReportImageRepository imageRepository;
+
+    @Autowired
+    private ReportImageStorage storage;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Local scratch space for uploads being hashed; on the image volume when storage is local
+    @Value("${reports.images.staging-dir:${reports.images.dir:${user.dir}/uploads/reports}/.tmp}")
+    private String stagingDirectory;
+
+    @Value("${reports.images.collector.queue-capacity:10000}")
+    private int collectorQueueCapacity = 10_000;
+
+    // Unreferenced rows older than this are collected by the sweep
+    @Value("${reports.images.collector.grace-minutes:10}")
+    private long graceMinutes = 10;
+
+    // Collection runs after commit, where the finished transaction is still bound
+    private TransactionTemplate newTransaction;
+    private ThreadPoolExecutor collector;
+
+    @PostConstruct
+    void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        // One thread is plenty; when it falls behind, committing threads collect for themselves
+        collector = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(collectorQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-collector");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        Gauge.builder("reports.images.collector.queued", collector, e -> e.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        collector.shutdown();
+    }
+
+    /**
+     * Stores the upload (or finds it already stored) and adds one reference.
+     * Must run in the transaction that saves the report pointing at it.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String store(MultipartFile file) throws IOException {
+        if (!isRasterImage(file.getContentType())) {
+            throw new IllegalArgumentException("Only JPEG, PNG, WebP, GIF or HEIC images can be uploaded.");
+        }
+        Path temp = newTempFile();
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            attach(hash, size, file.getContentType(), temp);
+            return hash;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Adds one reference to bytes already staged on this node under their
+     * SHA-256, putting them into storage unless they are there already. The
+     * staged file may be moved; callers delete it if it is still there.
+     *
+     * The put comes before the row lock, so a slow upload to a remote backend
+     * never holds it; keys are content hashes, so putting again is harmless.
+     * Once the reference is counted the object cannot be collected, so it is
+     * checked once more under the lock in case a collection ran in between.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void attach(String hash, long size, String contentType, Path staged) throws IOException {
+        String key = keyOf(hash);
+        boolean stored = storage.size(key).isEmpty();
+        if (stored) {
+            if (!Files.exists(staged)) {
+                throw new IllegalArgumentException("The uploaded image is no longer available; upload it again.");
+            }
+            storage.put(key, staged, contentType);
+        }
+
+        // The row can be collected between the insert and the increment; seed it again then
+        imageRepository.insertIfAbsent(hash, size, contentType);
+        while (imageRepository.adjustReferences(hash, 1) == 0) {
+            imageRepository.insertIfAbsent(hash, size, contentType);
+        }
+        // A rolled-back attach may leave an unreferenced object behind
+        TransactionCallbacks.afterRollback(() -> collectLater(hash));
+
+        if (storage.size(key).isEmpty()) {
+            // Collected between the put and the lock; a local put has moved the staged file away
+            if (!Files.exists(staged)) {
+                throw new ConcurrencyFailureException("Image " + hash + " was collected while being stored");
+            }
+            storage.put(key, staged, contentType);
+        }
+        meterRegistry.counter("reports.images.stored", "result", stored ? "new" : "deduplicated").increment();
+    }
+
+    // Drops one reference; the object goes once the transaction commits and nothing else uses it
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(String imagePath) {
+        if (imagePath == null) {
+            return;
+        }
+        if (!isContentHash(imagePath)) {
+            String key = keyOf(imagePath);
+            TransactionCallbacks.afterCommit(() -> collector.execute(() -> deleteQuietly(List.of(key))));
+            return;
+        }
+        imageRepository.adjustReferences(imagePath, -1);
+        TransactionCallbacks.afterCommit(() -> collectLater(imagePath));
+    }
+
+    // The storage key behind a Report.imagePath; legacy paths are keys already
+    public static String keyOf(String imagePath) {
+        if (!isContentHash(imagePath)) {
+            return imagePath;
+        }
+        return imagePath.substring(0, 2) + "/" + imagePath.substring(2, 4) + "/" + imagePath;
+    }
+
+    public static String variantKey(String hash, ImageVariant variant) {
+        if (variant == ImageVariant.ORIGINAL) {
+            return keyOf(hash);
+        }
+        return keyOf(hash) + "." + variant.getSuffix() + ".jpg";
+    }
+
+    // A local scratch file for an upload or a rendered variant
+    public Path newTempFile() throws IOException {
+        Path directory = Files.createDirectories(Paths.get(stagingDirectory).toAbsolutePath());
+        return Files.createTempFile(directory, "image-", ".part");
+    }
+
+    /**
+     * Puts a rendered variant into storage. Returns false, dropping it again,
+     * when the original was collected while the variant was being rendered.
+     */
+    public boolean saveVariant(String hash, ImageVariant variant, Path rendered) throws IOException {
+        String key = variantKey(hash, variant);
+        storage.put(key, rendered, "image/jpeg");
+        if (storage.size(keyOf(hash)).isPresent()) {
+            return true;
+        }
+        deleteQuietly(List.of(key));
+        return false;
+    }
+
+    public static boolean isRasterImage(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            MediaType type = MediaType.parseMediaType(contentType);
+            return RASTER_TYPES.contains(type.getType() + "/" + type.getSubtype());
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    public static boolean isContentHash(String imagePath) {
+        return imagePath != null && CONTENT_HASH.matcher(imagePath).matches();
+    }
+
+    // Collects what a crash or a failed delete left behind
+    @Scheduled(fixedDelayString = "${reports.images.collector.sweep-millis:3600000}")
+    public void sweep() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(graceMinutes));
+        for (String hash : imageRepository.findUnreferencedBefore(cutoff)) {
+            collectLater(hash);
+        }
+    }
+
+    private void collectLater(String hash) {
+        collector.execute(() -> collect(hash));
+    }
+
+    void collect(String hash) {
+        newTransaction.executeWithoutResult(status -> {
+            Optional<ReportImage> image = imageRepository.lockByHash(hash);
+            if (image.isPresent() && image.get().getRefCount() > 0) {
+                return;
+            }
+            List<String> keys = new ArrayList<>();
+            // ORIGINAL is the uploaded object itself
+            for (ImageVariant variant : ImageVariant.values()) {
+                keys.add(variantKey(hash, variant));
+            }
+            try {
+                storage.delete(keys);
+            } catch (IOException e) {
+                // The row stays, so the next sweep tries again
+                log.warn("Could not delete image {}: {}", hash, e.getMessage());
+                status.setRollbackOnly();
+                return;
+            }
+            image.ifPresent(imageRepository::delete);
+        });
+    }
+
+    private void deleteQuietly(List<String> keys) {
+        try {
+            storage.delete(keys);
+        } catch (IOException e) {
+            log.warn("Could not delete images {}: {}", keys, e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.ExportFormat;
+import com.anistebbal.starter.dto.IngestResultDTO;
+import com.anistebbal.starter.entities.IngestJob;
+import com.anistebbal.starter.entities.Report;
+import com.anistebbal.starter.entities.ReportStatus;
+import com.anistebbal.starter.entities.Street;
+import com.anistebbal.starter.entities.User;
+import com.anistebbal.starter.repositories.IngestJobRepository;
+import com.anistebbal.starter.repositories.ReportRepository;
+import com.anistebbal.starter.repositories.StreetRepository;
+import com.anistebbal.starter.repositories.UserRepository;
+import com.anistebbal.starter.util.CsvReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Imports reports from NDJSON or CSV streams (nightly hotline migration).
+ *
+ * The input is read record by record and written in chunks, each in its own
+ * transaction together with the job's progress. A failed or interrupted run
+ * can be re-sent in full under the same job id: records up to the last
+ * committed chunk are skipped. Street and user references are checked with
+ * one query each per chunk, and ids come from the pooled report sequence, so
+ * the inserts of a chunk go out as JDBC batches.
+ *
+ * Expected fields: description, streetId, userId, and optionally status
+ * (default PENDING) and createdAt (ISO date, default today).
+ */
+@Service
+public class ReportIngestService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportIngestService.class);
+
+    private static final int MAX_DESCRIPTION_LENGTH = 200;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private StreetRepository streetRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private IngestJobRepository ingestJobRepository;
+
+    @Autowired
+    private ReportRollupService reportRollupService;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${reports.ingest.chunk-size:500}")
+    private int chunkSize = 500;
+
+    // One input record: parsed fields, or why it could not be parsed
+    private record IngestRow(long record, Map<String, String> fields, String parseError) {
+    }
+
+    private interface RowSource {
+        IngestRow next() throws IOException;
+    }
+
+    private static final class Progress {
+        private final long started = System.nanoTime();
+        private long skipped;
+        private long inserted;
+        private long rejected;
+        private long recordsCommitted;
+        private final List<IngestResultDTO.RowError> errors = new ArrayList<>();
+
+        private void reject(long record, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new IngestResultDTO.RowError(record, message));
+            }
+        }
+    }
+
+    public IngestResultDTO ingest(String jobId, ExportFormat format, InputStream in) throws IOException {
+        if (jobId == null || jobId.isBlank() || jobId.length() > 100) {
+            throw new IllegalArgumentException("A job ID of at most 100 characters is required.");
+        }
+        IngestJob job = ingestJobRepository.findById(jobId).orElseGet(() -> ingestJobRepository.save(
+                IngestJob.builder().id(jobId).startedAt(Instant.now()).updatedAt(Instant.now()).build()));
+        long alreadyCommitted = job.getRecordsCommitted();
+
+        Progress progress = new Progress();
+        progress.recordsCommitted = alreadyCommitted;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        RowSource source = format == ExportFormat.CSV ? csvSource(reader) : ndjsonSource(reader);
+
+        List<IngestRow> chunk = new ArrayList<>(chunkSize);
+        IngestRow row;
+        while ((row = source.next()) != null) {
+            if (row.record() <= alreadyCommitted) {
+                progress.skipped++;
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                commitChunk(jobId, chunk, progress);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            commitChunk(jobId, chunk, progress);
+        }
+
+        long elapsedNanos = System.nanoTime() - progress.started;
+        long processed = progress.inserted + progress.rejected;
+        double rowsPerSecond = elapsedNanos > 0 ? processed / (elapsedNanos / 1_000_000_000.0) : 0.0;
+        log.info("Ingest job {}: {} inserted, {} rejected, {} skipped in {} ms ({} rows/s)", jobId,
+                progress.inserted, progress.rejected, progress.skipped, elapsedNanos / 1_000_000,
+                Math.round(rowsPerSecond));
+
+        return IngestResultDTO.builder()
+                .jobId(jobId)
+                .skipped(progress.skipped)
+                .inserted(progress.inserted)
+                .rejected(progress.rejected)
+                .recordsCommitted(progress.recordsCommitted)
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .rowsPerSecond(rowsPerSecond)
+                .errors(progress.errors)
+                .build();
+    }
+
+    private void commitChunk(String jobId, List<IngestRow> chunk, Progress progress) {
+        long firstRecord = chunk.get(0).record();
+        long lastRecord = chunk.get(chunk.size() - 1).record();
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        Progress chunkProgress = transactionTemplate.execute(status -> {
+            IngestJob job = ingestJobRepository.lockById(jobId)
+                    .orElseThrow(() -> new IllegalArgumentException("Ingest job " + jobId + " no longer exists."));
+            if (job.getRecordsCommitted() != firstRecord - 1) {
+                throw new IllegalArgumentException("Ingest job " + jobId + " was advanced by a concurrent run.");
+            }
+
+            Progress local = new Progress();
+            List<Report> reports = toReports(chunk, local);
+
+            reportRepository.saveAll(reports);
+            job.setRecordsCommitted(lastRecord);
+            job.setInserted(job.getInserted() + local.inserted);
+            job.setRejected(job.getRejected() + local.rejected);
+            job.setUpdatedAt(Instant.now());
+            entityManager.flush();
+
+            reportRollupService.recordCreated(reports);
+            reports.forEach(report -> events.publishEvent(new ReportChanged(report.getId(), report.getCreatedAt())));
+            // Keep the persistence context from growing across chunks
+            entityManager.clear();
+            return local;
+        });
+
+        sample.stop(meterRegistry.timer("reports.ingest.chunk"));
+        meterRegistry.counter("reports.ingest.rows", "result", "inserted").increment(chunkProgress.inserted);
+        meterRegistry.counter("reports.ingest.rows", "result", "rejected").increment(chunkProgress.rejected);
+
+        progress.inserted += chunkProgress.inserted;
+        progress.rejected += chunkProgress.rejected;
+        progress.recordsCommitted = lastRecord;
+        chunkProgress.errors.forEach(error -> {
+            if (progress.errors.size() < MAX_REPORTED_ERRORS) {
+                progress.errors.add(error);
+            }
+        });
+    }
+
+    private List<Report> toReports(List<IngestRow> chunk, Progress progress) {
+        Set<Long> streetIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        for (IngestRow row : chunk) {
+            if (row.parseError() == null) {
+                addIfNumeric(streetIds, row.fields().get("streetId"));
+                addIfNumeric(userIds, row.fields().get("userId"));
+            }
+        }
+        Set<Long> knownStreets = streetIds.isEmpty() ? Set.of() : new HashSet<>(streetRepository.findExistingIds(streetIds));
+        Set<Long> knownUsers = userIds.isEmpty() ? Set.of() : new HashSet<>(userRepository.findExistingIds(userIds));
+
+        List<Report> reports = new ArrayList<>(chunk.size());
+        LocalDate today = LocalDate.now();
+        for (IngestRow row : chunk) {
+            if (row.parseError() != null) {
+                progress.reject(row.record(), row.parseError());
+                continue;
+            }
+            Map<String, String> fields = row.fields();
+            try {
+                String description = required(fields, "description").trim();
+                if (description.length() > MAX_DESCRIPTION_LENGTH) {
+                    throw new IllegalArgumentException("description exceeds " + MAX_DESCRIPTION_LENGTH + " characters");
+                }
+                Long streetId = Long.valueOf(required(fields, "streetId").trim());
+                Long userId = Long.valueOf(required(fields, "userId").trim());
+                if (!knownStreets.contains(streetId)) {
+                    throw new IllegalArgumentException("unknown street " + streetId);
+                }
+                if (!knownUsers.contains(userId)) {
+                    throw new IllegalArgumentException("unknown user " + userId);
+                }
+                String statusValue = fields.get("status");
+                ReportStatus status = statusValue == null || statusValue.isBlank()
+                        ? ReportStatus.PENDING
+                        : ReportStatus.valueOf(statusValue.trim().toUpperCase(Locale.ROOT));
+                String createdAtValue = fields.get("createdAt");
+                LocalDate createdAt = createdAtValue == null || createdAtValue.isBlank()
+                        ? today
+                        : LocalDate.parse(createdAtValue.trim());
+                if (createdAt.isAfter(today)) {
+                    throw new IllegalArgumentException("createdAt is in the future");
+                }
+
+                reports.add(Report.builder()
+                        .description(description)
+                        .status(status)
+                        .createdAt(createdAt)
+                        // References only; existence was checked above
+                        .street(entityManager.getReference(Street.class, streetId))
+                        .user(entityManager.getReference(User.class, userId))
+                        .build());
+                progress.inserted++;
+            } catch (DateTimeParseException e) {
+                progress.reject(row.record(), "invalid createdAt");
+            } catch (IllegalArgumentException e) { // includes NumberFormatException and unknown statuses
+                progress.reject(row.record(), e.getMessage());
+            }
+        }
+        return reports;
+    }
+
+    private RowSource ndjsonSource(BufferedReader reader) {
+        long[] record = { 0 };
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+
+            long index = ++record[0];
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                if (!node.isObject()) {
+                    return new IngestRow(index, null, "not a JSON object");
+                }
+                Map<String, String> fields = new HashMap<>();
+                node.fields().forEachRemaining(entry -> {
+                    if (!entry.getValue().isNull()) {
+                        fields.put(entry.getKey(), entry.getValue().asText());
+                    }
+                });
+                return new IngestRow(index, fields, null);
+            } catch (JsonProcessingException e) {
+                return new IngestRow(index, null, "malformed JSON");
+            }
+        };
+    }
+
+    private RowSource csvSource(BufferedReader reader) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return () -> null;
+        }
+        List<String> columns = header.stream().map(String::trim).toList();
+        long[] record = { 0 };
+        return () -> {
+            List<String> values = csv.next();
+            if (values == null) {
+                return null;
+            }
+            long index = ++record[0];
+            if (values.size() != columns.size()) {
+                return new IngestRow(index, null,
+                        "expected " + columns.size() + " columns but found " + values.size());
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                fields.put(columns.get(i), values.get(i));
+            }
+            return new IngestRow(index, fields, null);
+        };
+    }
+
+    private static String required(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(name + " is required");
+        }
+        return value;
+    }
+
+    private static void addIfNumeric(Set<Long> ids, String value) {
+        if (value == null) {
+            return;
+        }
+        try {
+            ids.add(Long.valueOf(value.trim()));
+        } catch (NumberFormatException ignored) {
+            // Reported when the row itself is validated
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.anistebbal.starter.services;
+
+import java.time.LocalDate;
+
+/**
+ * Published by {@link ReportRollupService#rebuild} for the days it recomputed,
+ * so anything cached from the rollup within that range can be dropped.
+ */
+public record ReportRollupRebuilt(LocalDate startDate, LocalDate endDate) {
+}
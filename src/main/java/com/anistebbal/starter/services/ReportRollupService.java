@@ -0,0 +1,249 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.ReportAnalyticsDTO;
+import com.anistebbal.starter.dto.ReportStatusSnapshot;
+import com.anistebbal.starter.entities.Report;
+import com.anistebbal.starter.entities.ReportStatus;
+import com.anistebbal.starter.repositories.ReportDailyRollupRepository;
+import com.anistebbal.starter.util.CacheMetrics;
+import com.anistebbal.starter.util.CoalescingCache;
+import com.anistebbal.starter.util.TransactionCallbacks;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the report_daily_rollup table and answers analytics from it.
+ *
+ * The record* methods must run inside the transaction that changes the report,
+ * so a report and its count commit or roll back together. The common case is
+ * a single UPDATE; the first report of a (day, street, status) seeds the row
+ * with an INSERT that tolerates concurrent seeders.
+ *
+ * Analytics results are cached per date range. Once a report change commits,
+ * every cached range covering that report's day is dropped; identical misses
+ * arriving together share one query.
+ */
+@Service
+public class ReportRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportRollupService.class);
+
+    @Autowired
+    private ReportDailyRollupRepository rollupRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Value("${reports.analytics.cache.max-entries:500}")
+    private int maxEntries;
+
+    @Value("${reports.analytics.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private CoalescingCache<DateRange, ReportAnalyticsDTO> analytics;
+
+    private record RollupKey(LocalDate day, Long streetId, ReportStatus status) {
+    }
+
+    // Change to one rollup row: reports, and how many of them are probable duplicates
+    private record Delta(long reports, long duplicates) {
+        static Delta of(long reports, Long duplicateOfId) {
+            return new Delta(reports, duplicateOfId != null ? reports : 0);
+        }
+
+        Delta plus(Delta other) {
+            return new Delta(reports + other.reports, duplicates + other.duplicates);
+        }
+
+        boolean isZero() {
+            return reports == 0 && duplicates == 0;
+        }
+    }
+
+    record DateRange(LocalDate startDate, LocalDate endDate) {
+        boolean covers(LocalDate day) {
+            return !day.isBefore(startDate) && !day.isAfter(endDate);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        analytics = new CoalescingCache<>(maxEntries, Duration.ofSeconds(ttlSeconds));
+        CacheMetrics.bind(meterRegistry, "report-analytics", analytics.entries());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Report report) {
+        adjust(report.getCreatedAt(), report.getStreet().getId(), report.getStatus(),
+                Delta.of(1, report.getDuplicateOfId()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStatusChange(ReportStatusSnapshot before, ReportStatus after) {
+        if (before.status() == after) {
+            return;
+        }
+        adjust(before.createdAt(), before.streetId(), before.status(), Delta.of(-1, before.duplicateOfId()));
+        adjust(before.createdAt(), before.streetId(), after, Delta.of(1, before.duplicateOfId()));
+    }
+
+    /**
+     * Applies many status changes at once. Deltas are summed per rollup row
+     * first, then seeded and applied as two JDBC batches, so the number of
+     * round-trips does not grow with the number of reports.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStatusChanges(Map<ReportStatusSnapshot, ReportStatus> transitions) {
+        Map<RollupKey, Delta> deltas = new HashMap<>();
+        transitions.forEach((before, after) -> {
+            if (before.status() != after) {
+                deltas.merge(new RollupKey(before.createdAt(), before.streetId(), before.status()),
+                        Delta.of(-1, before.duplicateOfId()), Delta::plus);
+                deltas.merge(new RollupKey(before.createdAt(), before.streetId(), after),
+                        Delta.of(1, before.duplicateOfId()), Delta::plus);
+            }
+        });
+        applyDeltas(deltas);
+    }
+
+    // Bulk counterpart of recordCreated for imported reports
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Collection<Report> reports) {
+        Map<RollupKey, Delta> deltas = new HashMap<>();
+        reports.forEach(report -> deltas.merge(
+                new RollupKey(report.getCreatedAt(), report.getStreet().getId(), report.getStatus()),
+                Delta.of(1, report.getDuplicateOfId()), Delta::plus));
+        applyDeltas(deltas);
+    }
+
+    private void applyDeltas(Map<RollupKey, Delta> deltas) {
+        deltas.values().removeIf(Delta::isZero);
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> seeds = new ArrayList<>();
+        List<Object[]> increments = new ArrayList<>();
+        deltas.forEach((key, delta) -> {
+            Object[] keyColumns = { Date.valueOf(key.day()), key.streetId(), key.status().name() };
+            if (delta.reports() > 0) {
+                seeds.add(keyColumns);
+            }
+            increments.add(new Object[] {
+                    delta.reports(), delta.duplicates(), keyColumns[0], keyColumns[1], keyColumns[2] });
+        });
+
+        if (!seeds.isEmpty()) {
+            jdbcTemplate.batchUpdate("""
+                    INSERT INTO report_daily_rollup (report_day, street_id, status, report_count, duplicate_count)
+                    VALUES (?, ?, ?, 0, 0)
+                    ON CONFLICT DO NOTHING
+                    """, seeds);
+        }
+        jdbcTemplate.batchUpdate("""
+                UPDATE report_daily_rollup
+                SET report_count = report_count + ?, duplicate_count = duplicate_count + ?
+                WHERE report_day = ? AND street_id = ? AND status = ?
+                """, increments);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Report report) {
+        adjust(report.getCreatedAt(), report.getStreet().getId(), report.getStatus(),
+                Delta.of(-1, report.getDuplicateOfId()));
+    }
+
+    // Deliberately not transactional: callers waiting on a shared load must not hold a connection
+    public ReportAnalyticsDTO getAnalytics(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            throw new IllegalArgumentException("Start date and end date are required.");
+        }
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date must not be after end date.");
+        }
+        return analytics.get(new DateRange(startDate, endDate), () -> loadAnalytics(startDate, endDate));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReportChanged(ReportChanged event) {
+        if (event.day() != null) {
+            analytics.invalidateIf(range -> range.covers(event.day()));
+        }
+    }
+
+    private ReportAnalyticsDTO loadAnalytics(LocalDate startDate, LocalDate endDate) {
+        ReportDailyRollupRepository.Totals totals = rollupRepository.sumBetween(startDate, endDate);
+
+        int total = (int) totals.getTotal();
+        int resolved = (int) totals.getResolved();
+        int pending = (int) totals.getPending();
+        int duplicates = (int) totals.getDuplicates();
+
+        double rate = total > 0 ? ((double) resolved / total) * 100 : 0.0;
+
+        return ReportAnalyticsDTO.builder()
+                .totalReports(total)
+                .resolvedReports(resolved)
+                .pendingReports(pending)
+                .duplicateReports(duplicates)
+                .resolutionRate(rate)
+                .build();
+    }
+
+    /**
+     * Recomputes the rollup for a date range from the report table, e.g. to
+     * backfill history or repair drift. Reports written in the range while the
+     * rebuild runs may be missed, so run it for past days or in a quiet window.
+     * Cached analytics for the range are dropped once it commits.
+     */
+    @Transactional
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date must not be after end date.");
+        }
+        rollupRepository.deleteBetween(startDate, endDate);
+        int rows = rollupRepository.rebuildBetween(startDate, endDate);
+        TransactionCallbacks.afterCommit(analytics::clear);
+        events.publishEvent(new ReportRollupRebuilt(startDate, endDate));
+        log.info("Rebuilt report rollup for {} to {}: {} rows", startDate, endDate, rows);
+        return rows;
+    }
+
+    private void adjust(LocalDate day, Long streetId, ReportStatus status, Delta delta) {
+        if (rollupRepository.increment(day, streetId, status, delta.reports(), delta.duplicates()) > 0) {
+            return;
+        }
+        if (delta.reports() < 0) {
+            // Nothing to take away from: the range predates the rollup and needs a rebuild
+            log.warn("No rollup row for {} / street {} / {}; run a rebuild for that day", day, streetId, status);
+            return;
+        }
+        rollupRepository.insertIfAbsent(day, streetId, status.name());
+        rollupRepository.increment(day, streetId, status, delta.reports(), delta.duplicates());
+    }
+}
@@ -0,0 +1,213 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.ReportResponseDTO;
+import com.anistebbal.starter.dto.ReportSearchDocument;
+import com.anistebbal.starter.dto.ReportSearchQueryDTO;
+import com.anistebbal.starter.dto.ReportSearchResultDTO;
+import com.anistebbal.starter.repositories.ReportRepository;
+import com.anistebbal.starter.util.InvertedIndex;
+import com.anistebbal.starter.util.TextTokenizer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Full-text search over report descriptions, answered from an in-process
+ * inverted index.
+ *
+ * Description words, the district ("district:7") and the status
+ * ("status:PENDING") are all terms, so text and those filters are one
+ * posting-list intersection; the date range is checked against the few
+ * candidates that survive it. Only the page of hits is read from the database.
+ *
+ * The index is built once at startup and then follows committed report
+ * changes: each ReportChanged marks the report stale, and stale reports are
+ * re-read in batches before the next search (or on a short timer), so a large
+ * import costs a handful of queries instead of one per row.
+ */
+@Service
+public class ReportSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportSearchService.class);
+
+    private static final int REFRESH_BATCH = 500;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${reports.search.default-size:20}")
+    private int defaultSize = 20;
+
+    @Value("${reports.search.max-size:100}")
+    private int maxSize = 100;
+
+    private final InvertedIndex<LocalDate> index = new InvertedIndex<>();
+    private final Set<Long> stale = ConcurrentHashMap.newKeySet();
+    // Serializes index writers so an older read of a report can never overwrite a newer one
+    private final Object refreshLock = new Object();
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("reports.search.documents", index, InvertedIndex::size).register(meterRegistry);
+        Gauge.builder("reports.search.stale", stale, Set::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReportChanged(ReportChanged event) {
+        stale.add(event.reportId());
+    }
+
+    @Scheduled(fixedDelayString = "${reports.search.refresh-millis:2000}")
+    public void refreshStale() {
+        if (stale.isEmpty()) {
+            return;
+        }
+        synchronized (refreshLock) {
+            List<Long> batch = new ArrayList<>(Math.min(stale.size(), REFRESH_BATCH));
+            for (Long id : stale) {
+                // Claim before reading: a change committed after this point marks the id again
+                if (stale.remove(id)) {
+                    batch.add(id);
+                }
+                if (batch.size() == REFRESH_BATCH) {
+                    reindex(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                reindex(batch);
+            }
+        }
+    }
+
+    public ReportSearchResultDTO search(ReportSearchQueryDTO query) {
+        List<String> terms = TextTokenizer.tokenize(query.getQ());
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Search text must contain at least one word.");
+        }
+        if (query.getStartDate() != null && query.getEndDate() != null
+                && query.getStartDate().isAfter(query.getEndDate())) {
+            throw new IllegalArgumentException("Start date must not be after end date.");
+        }
+        if (query.getDistrictId() != null) {
+            terms.add(districtTerm(query.getDistrictId()));
+        }
+        if (query.getStatus() != null) {
+            terms.add(statusTerm(query.getStatus().name()));
+        }
+
+        refreshStale();
+        InvertedIndex.Hits hits = index.search(terms, inRange(query.getStartDate(), query.getEndDate()),
+                resolveSize(query.getSize()));
+        return new ReportSearchResultDTO(hits.total(), load(hits.ids()));
+    }
+
+    /**
+     * Discards the index and reads every report again. Runs at startup; also
+     * useful after changes made behind the service's back, such as bulk SQL.
+     */
+    public void rebuild() {
+        synchronized (refreshLock) {
+            long started = System.nanoTime();
+            stale.clear();
+            index.clear();
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<ReportSearchDocument> documents = reportRepository.streamSearchDocuments()) {
+                    documents.forEach(this::put);
+                }
+            });
+            log.info("Search index built with {} reports in {} ms",
+                    index.size(), (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    private void reindex(List<Long> ids) {
+        Set<Long> missing = new HashSet<>(ids);
+        for (ReportSearchDocument document : reportRepository.findSearchDocuments(ids)) {
+            put(document);
+            missing.remove(document.id());
+        }
+        missing.forEach(index::remove);
+    }
+
+    private void put(ReportSearchDocument document) {
+        List<String> terms = TextTokenizer.tokenize(document.description());
+        terms.add(districtTerm(document.districtId()));
+        terms.add(statusTerm(document.status().name()));
+        index.put(document.id(), terms, document.createdAt());
+    }
+
+    // Hits come back newest first; the IN query does not keep that order
+    private List<ReportResponseDTO> load(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ReportResponseDTO> byId = new HashMap<>();
+        reportRepository.findResponsesByIds(ids).forEach(report -> byId.put(report.getId(), report));
+        List<ReportResponseDTO> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ReportResponseDTO report = byId.get(id);
+            // Deleted between the index lookup and this read
+            if (report != null) {
+                ordered.add(report);
+            }
+        }
+        return ordered;
+    }
+
+    private int resolveSize(Integer requested) {
+        if (requested == null) {
+            return defaultSize;
+        }
+        if (requested < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1.");
+        }
+        return Math.min(requested, maxSize);
+    }
+
+    private static Predicate<LocalDate> inRange(LocalDate startDate, LocalDate endDate) {
+        return createdAt -> (startDate == null || !createdAt.isBefore(startDate))
+                && (endDate == null || !createdAt.isAfter(endDate));
+    }
+
+    // The tokenizer splits on ':', so these can never collide with description words
+    private static String districtTerm(Long districtId) {
+        return "district:" + districtId;
+    }
+
+    private static String statusTerm(String status) {
+        return "status:" + status;
+    }
+}
@@ -1,12 +1,17 @@
 package com.anistebbal.starter.services;
 
 import com.anistebbal.starter.dto.AdminReportFilterDTO;
+import com.anistebbal.starter.dto.BulkStatusUpdateDTO;
+import com.anistebbal.starter.dto.BulkStatusUpdateResultDTO;
 import com.anistebbal.starter.dto.CitizenReportFilterDTO;
 import com.anistebbal.starter.dto.CitizenReportResponseDTO;
 import com.anistebbal.starter.dto.CreateReportDTO;
+import com.anistebbal.starter.dto.CursorPageDTO;
 import com.anistebbal.starter.dto.ReportAnalyticsDTO;
 import com.anistebbal.starter.dto.ReportResponseCreationDTO;
 import com.anistebbal.starter.dto.ReportResponseDTO;
+import com.anistebbal.starter.dto.ReportStatusDTO;
+import com.anistebbal.starter.dto.ReportStatusSnapshot;
 import com.anistebbal.starter.entities.Report;
 import com.anistebbal.starter.entities.ReportStatus;
 
@@ -14,23 +19,33 @@ import com.anistebbal.starter.entities.User;
 import com.anistebbal.starter.repositories.ReportRepository;
 
 import com.anistebbal.starter.repositories.UserRepository;
+import com.anistebbal.starter.util.ReportCursor;
 import jakarta.persistence.EntityNotFoundException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 @Service
 public class ReportService {
 
-    private static final String UPLOAD_DIR = System.getProperty("user.dir") + "/uploads/reports/";
-
     // private static final Logger log =
     // LoggerFactory.getLogger(ReportController.class);
 
@@ -40,67 +55,70 @@ public class ReportService {
     @Autowired
     private UserRepository userRepository;
 
-    private boolean isImageProvided(MultipartFile file) {
-        return file != null && !file.isEmpty();
-    }
+    @Autowired
+    private ReportRollupService reportRollupService;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private DuplicateReportDetector duplicateDetector;
+
+    @Autowired
+    private ReportImageStore imageStore;
 
-    private String saveImageFile(MultipartFile imageFile) throws IOException {
-        System.out.println("🟡 Image received: " + imageFile.getOriginalFilename());
-        System.out.println("🟡 Image size: " + imageFile.getSize());
+    @Autowired
+    private ImageVariantPipeline imageVariants;
 
-        String fileName = UUID.randomUUID() + "_" + imageFile.getOriginalFilename();
-        File destination = new File(UPLOAD_DIR + fileName);
+    @Autowired
+    private UploadSessionService uploadSessions;
 
-        System.out.println("🛠️ Destination path: " + destination.getAbsolutePath());
+    @Value("${reports.page.default-size:20}")
+    private int defaultPageSize = 20;
 
-        destination.getParentFile().mkdirs(); // ✅ This now works correctly
+    @Value("${reports.page.max-size:100}")
+    private int maxPageSize = 100;
 
-        try {
-            imageFile.transferTo(destination);
-            System.out.println("✅ Image saved successfully.");
-        } catch (IOException e) {
-            System.out.println("❌ Failed to save image: " + e.getMessage());
-            throw e;
-        }
+    private boolean isImageProvided(MultipartFile file) {
+        return file != null && !file.isEmpty();
+    }
 
-        return fileName;
+    // The image sent with the request, or a completed upload session; null for neither
+    private String attachImage(Long userId, MultipartFile file, String uploadId) throws IOException {
+        boolean hasUpload = uploadId != null && !uploadId.isBlank();
+        if (isImageProvided(file) && hasUpload) {
+            throw new IllegalArgumentException("Send either an image or an uploadId, not both.");
+        }
+        if (hasUpload) {
+            return uploadSessions.attach(userId, uploadId);
+        }
+        return isImageProvided(file) ? imageStore.store(file) : null;
     }
 
     private ReportResponseCreationDTO mapToCreationDto(Report report) {
         return ReportResponseCreationDTO.builder()
                 .id(report.getId())
                 .description(report.getDescription())
+                .imagePath(report.getImagePath())
                 .status(report.getStatus().name())
                 .createdAt(report.getCreatedAt().toString())
                 .streetName(report.getStreet().getName())
-                .build();
-    }
-
-    private CitizenReportResponseDTO mapToCitizenDTO(Report report) {
-
-        return CitizenReportResponseDTO.builder()
-                .id(report.getId())
-                .text(report.getDescription())
-                .status(report.getStatus())
-                .createdAt(report.getCreatedAt())
-                .build();
-    }
-
-    private ReportResponseDTO mapToAdminDTO(Report report) {
-        return ReportResponseDTO.builder()
-                .id(report.getId())
-                .text(report.getDescription())
-                .status(report.getStatus())
-                .createdAt(report.getCreatedAt())
-                .streetName(report.getStreet().getName())
-                .districtName(report.getStreet().getDistrict().getName())
+                .duplicateOf(report.getDuplicateOfId())
                 .build();
     }
 
     // CREATE REPORT
+    @Transactional
     public ReportResponseCreationDTO createReport(Long userId, String description, MultipartFile imageFile)
             throws IOException {
-        User user = userRepository.findById(userId)
+        return createReport(userId, description, imageFile, null);
+    }
+
+    // uploadId names a completed upload session to use as the image instead of imageFile
+    @Transactional
+    public ReportResponseCreationDTO createReport(Long userId, String description, MultipartFile imageFile,
+            String uploadId) throws IOException {
+        User user = userRepository.findWithStreetById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
 
         Report report = Report.builder()
@@ -108,128 +126,216 @@ public class ReportService {
                 .street(user.getStreet())
                 .description(description)
                 .status(ReportStatus.PENDING)
+                .duplicateOfId(duplicateDetector.findCanonical(user.getStreet().getId(), description))
                 .build();
 
-        if (isImageProvided(imageFile)) {
-            String savedFilename = saveImageFile(imageFile);
-            report.setImagePath(savedFilename);
-        }
+        report.setImagePath(attachImage(userId, imageFile, uploadId));
+        imageVariants.generateAfterCommit(report.getImagePath());
 
         Report saved = reportRepository.save(report);
+        reportRollupService.recordCreated(saved);
+        duplicateDetector.recordSaved(saved);
+        events.publishEvent(new ReportChanged(saved.getId(), saved.getCreatedAt()));
         return mapToCreationDto(saved);
     }
 
-    public List<CitizenReportResponseDTO> getReportsForCitizen(Long userId, CitizenReportFilterDTO filter) {
-        User user = userRepository.findById(userId)
+    @Transactional(readOnly = true)
+    public CursorPageDTO<CitizenReportResponseDTO> getReportsForCitizen(Long userId, CitizenReportFilterDTO filter) {
+        Long streetId = userRepository.findStreetIdById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
-        Long streetId = user.getStreet().getId();
 
         LocalDate start = filter.getStartDate() != null ? filter.getStartDate() : LocalDate.now().minusDays(7);
         LocalDate end = filter.getEndDate() != null ? filter.getEndDate() : LocalDate.now();
+        ReportCursor cursor = resolveCursor(filter.getCursor(), end);
+        int size = resolvePageSize(filter.getSize());
 
-        List<Report> reports = (filter.getStatus() != null)
-                ? reportRepository.findByStreetIdAndStatusAndCreatedAtBetween(streetId, filter.getStatus(), start, end)
-                : reportRepository.findByStreetIdAndCreatedAtBetween(streetId, start, end);
+        List<CitizenReportResponseDTO> rows = reportRepository.findCitizenReportsPage(
+                streetId, filter.getStatus(), start, end,
+                cursor.createdAt(), cursor.id(), PageRequest.of(0, size + 1));
 
-        return reports.stream().map(this::mapToCitizenDTO).toList();
+        return toPage(rows, size, CitizenReportResponseDTO::getCreatedAt, CitizenReportResponseDTO::getId);
     }
 
-    public List<ReportResponseDTO> getReportsForAdmin(AdminReportFilterDTO filter) {
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ReportResponseDTO> getReportsForAdmin(AdminReportFilterDTO filter) {
         if (filter.getDistrictId() == null) {
             throw new IllegalArgumentException("District ID is required.");
         }
 
         LocalDate start = filter.getStartDate() != null ? filter.getStartDate() : LocalDate.now().minusDays(7);
         LocalDate end = filter.getEndDate() != null ? filter.getEndDate() : LocalDate.now();
+        ReportCursor cursor = resolveCursor(filter.getCursor(), end);
+        int size = resolvePageSize(filter.getSize());
 
-        return reportRepository.findAdminReportsWithFilter(
+        List<ReportResponseDTO> rows = reportRepository.findAdminReportsPage(
                 filter.getDistrictId(),
                 filter.getStreetId(),
                 filter.getStatus(),
                 start,
-                end)
-                .stream()
-                .map(this::mapToAdminDTO)
-                .toList();
+                end,
+                cursor.createdAt(),
+                cursor.id(),
+                PageRequest.of(0, size + 1));
+
+        return toPage(rows, size, ReportResponseDTO::getCreatedAt, ReportResponseDTO::getId);
     }
 
-    public Report updateStatus(Long reportId, ReportStatus newStatus) {
-        Report report = reportRepository.findById(reportId)
-                .orElseThrow(() -> new EntityNotFoundException("Report not found"));
-        report.setStatus(newStatus);
-        return reportRepository.save(report);
+    private ReportCursor resolveCursor(String token, LocalDate end) {
+        return token == null || token.isBlank() ? ReportCursor.first(end) : ReportCursor.decode(token);
     }
 
-    public void deleteReport(Long reportId) {
-        if (!reportRepository.existsById(reportId)) {
-            throw new EntityNotFoundException("Report not found");
+    private int resolvePageSize(Integer requested) {
+        if (requested == null) {
+            return defaultPageSize;
         }
-        reportRepository.deleteById(reportId);
+        if (requested < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1.");
+        }
+        return Math.min(requested, maxPageSize);
     }
 
-    public ReportAnalyticsDTO getReportAnalytics(LocalDate startDate, LocalDate endDate) {
-        Object[] result = reportRepository.getReportAnalytics(startDate, endDate);
-
-        int total = ((Number) result[0]).intValue();
-        int resolved = ((Number) result[1]).intValue();
-        int pending = ((Number) result[2]).intValue();
+    // One extra row is fetched to know whether another page exists
+    private <T> CursorPageDTO<T> toPage(List<T> rows, int size,
+            Function<T, LocalDate> createdAt, Function<T, Long> id) {
+        boolean hasMore = rows.size() > size;
+        List<T> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            T last = page.get(page.size() - 1);
+            nextCursor = new ReportCursor(createdAt.apply(last), id.apply(last)).encode();
+        }
+        return new CursorPageDTO<>(page, nextCursor, hasMore);
+    }
 
-        double rate = total > 0 ? ((double) resolved / total) * 100 : 0.0;
+    /**
+     * Changes a report's status with one conditional UPDATE that also bumps the
+     * version; the entity is never loaded. When the caller passes the version it
+     * last read and the report has changed since, nothing is written and an
+     * optimistic locking failure (409) is raised instead.
+     */
+    @Transactional
+    public ReportStatusDTO updateStatus(Long reportId, ReportStatus newStatus, Long expectedVersion) {
+        // The rollup needs the old status and day, so one primary-key projection is still read
+        ReportStatusSnapshot current = reportRepository.findStatusSnapshot(reportId)
+                .orElseThrow(() -> new EntityNotFoundException("Report not found"));
+        long version = expectedVersion != null ? expectedVersion : current.version();
+        if (version != current.version()) {
+            throw new ObjectOptimisticLockingFailureException(Report.class, reportId);
+        }
+        if (current.status() == newStatus) {
+            return new ReportStatusDTO(reportId, newStatus, version);
+        }
+        if (!current.status().canTransitionTo(newStatus)) {
+            throw new IllegalArgumentException(
+                    "Cannot change status from " + current.status() + " to " + newStatus + ".");
+        }
+        if (reportRepository.updateStatusIfVersion(reportId, newStatus, version) == 0) {
+            throw new ObjectOptimisticLockingFailureException(Report.class, reportId);
+        }
+        reportRollupService.recordStatusChange(current, newStatus);
+        events.publishEvent(new ReportChanged(reportId, current.createdAt()));
+        return new ReportStatusDTO(reportId, newStatus, version + 1);
+    }
 
-        return ReportAnalyticsDTO.builder()
-                .totalReports(total)
-                .resolvedReports(resolved)
-                .pendingReports(pending)
-                .resolutionRate(rate)
-                .build();
+    /**
+     * Applies many status transitions in one transaction: one locking read of
+     * the affected rows, one set-based UPDATE per target status and a batched
+     * rollup adjustment. Each item gets its own outcome; missing reports do not
+     * fail the rest of the batch.
+     */
+    @Transactional
+    public BulkStatusUpdateResultDTO bulkUpdateStatus(BulkStatusUpdateDTO request) {
+        Map<Long, ReportStatus> requested = new LinkedHashMap<>();
+        request.getUpdates().forEach(item -> requested.putIfAbsent(item.getReportId(), item.getStatus()));
+
+        Map<Long, ReportStatusSnapshot> current = new HashMap<>();
+        reportRepository.lockStatusSnapshots(requested.keySet())
+                .forEach(snapshot -> current.put(snapshot.id(), snapshot));
+
+        Map<ReportStatus, List<Long>> idsByTarget = new EnumMap<>(ReportStatus.class);
+        Map<ReportStatusSnapshot, ReportStatus> transitions = new HashMap<>();
+        requested.forEach((id, target) -> {
+            ReportStatusSnapshot snapshot = current.get(id);
+            if (snapshot != null && snapshot.status() != target && snapshot.status().canTransitionTo(target)) {
+                idsByTarget.computeIfAbsent(target, status -> new ArrayList<>()).add(id);
+                transitions.put(snapshot, target);
+            }
+        });
+
+        idsByTarget.forEach((target, ids) -> reportRepository.updateStatusIn(ids, target));
+        reportRollupService.recordStatusChanges(transitions);
+        transitions.keySet().forEach(snapshot -> events.publishEvent(
+                new ReportChanged(snapshot.id(), snapshot.createdAt())));
+
+        Set<Long> reported = new HashSet<>();
+        List<BulkStatusUpdateResultDTO.ItemResult> results = new ArrayList<>(request.getUpdates().size());
+        for (BulkStatusUpdateDTO.Item item : request.getUpdates()) {
+            Long id = item.getReportId();
+            BulkStatusUpdateResultDTO.Outcome outcome;
+            if (!reported.add(id)) {
+                outcome = BulkStatusUpdateResultDTO.Outcome.DUPLICATE;
+            } else if (!current.containsKey(id)) {
+                outcome = BulkStatusUpdateResultDTO.Outcome.NOT_FOUND;
+            } else if (current.get(id).status() == requested.get(id)) {
+                outcome = BulkStatusUpdateResultDTO.Outcome.UNCHANGED;
+            } else if (!current.get(id).status().canTransitionTo(requested.get(id))) {
+                outcome = BulkStatusUpdateResultDTO.Outcome.INVALID_TRANSITION;
+            } else {
+                outcome = BulkStatusUpdateResultDTO.Outcome.UPDATED;
+            }
+            results.add(new BulkStatusUpdateResultDTO.ItemResult(id, item.getStatus(), outcome));
+        }
+        return new BulkStatusUpdateResultDTO(transitions.size(), results);
     }
 
-    private Report getAuthorizedReport(Long userId, Long reportId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+    @Transactional
+    public void deleteReport(Long reportId) {
         Report report = reportRepository.findById(reportId)
                 .orElseThrow(() -> new EntityNotFoundException("Report not found"));
+        imageStore.release(report.getImagePath());
+        reportRollupService.recordDeleted(report);
+        duplicateDetector.recordDeleted(report);
+        reportRepository.delete(report);
+        events.publishEvent(new ReportChanged(report.getId(), report.getCreatedAt()));
+    }
 
-        boolean isOwner = report.getUser().getId().equals(userId);
-        boolean sameStreet = report.getStreet().getId().equals(user.getStreet().getId());
+    // Served from the daily rollup, so the cost depends on the number of days, not reports
+    public ReportAnalyticsDTO getReportAnalytics(LocalDate startDate, LocalDate endDate) {
+        return reportRollupService.getAnalytics(startDate, endDate);
+    }
 
-        if (!isOwner && !sameStreet) {
-            throw new SecurityException("Not authorized to access this report.");
-        }
-        return report;
+    // The street comes from the caller's token, so authorization and the load are one query
+    private Report getAuthorizedReport(Long userId, Long streetId, Long reportId) {
+        return reportRepository.findAuthorizedForCitizen(reportId, userId, streetId)
+                .orElseThrow(() -> new EntityNotFoundException("Report not found"));
     }
 
-    public ReportResponseCreationDTO updateReportContent(Long userId, Long reportId, CreateReportDTO dto,
-            MultipartFile newImage) throws IOException {
-        Report report = getAuthorizedReport(userId, reportId);
+    @Transactional
+    public ReportResponseCreationDTO updateReportContent(Long userId, Long streetId, Long reportId,
+            CreateReportDTO dto, MultipartFile newImage) throws IOException {
+        Report report = getAuthorizedReport(userId, streetId, reportId);
         report.setDescription(dto.getText());
 
-        if (newImage == null || newImage.isEmpty()) {
-            deleteExistingImage(report);
-            report.setImagePath(null);
-        } else {
-            deleteExistingImage(report);
-            String newFileName = saveImageFile(newImage);
-            report.setImagePath(newFileName);
-        }
+        // Store before releasing, so re-sending the same photo keeps its file
+        String previousImage = report.getImagePath();
+        report.setImagePath(attachImage(userId, newImage, dto.getUploadId()));
+        imageStore.release(previousImage);
+        imageVariants.generateAfterCommit(report.getImagePath());
 
         Report saved = reportRepository.save(report);
+        duplicateDetector.recordSaved(saved);
+        events.publishEvent(new ReportChanged(saved.getId(), saved.getCreatedAt()));
         return mapToCreationDto(saved);
     }
 
-    public void deleteReportByUser(Long userId, Long reportId) {
-        Report report = getAuthorizedReport(userId, reportId);
-        deleteExistingImage(report);
+    @Transactional
+    public void deleteReportByUser(Long userId, Long streetId, Long reportId) {
+        Report report = getAuthorizedReport(userId, streetId, reportId);
+        imageStore.release(report.getImagePath());
+        reportRollupService.recordDeleted(report);
+        duplicateDetector.recordDeleted(report);
         reportRepository.delete(report);
-    }
-
-    private void deleteExistingImage(Report report) {
-        if (report.getImagePath() != null) {
-            File oldFile = new File(UPLOAD_DIR + report.getImagePath());
-            if (oldFile.exists()) {
-                oldFile.delete();
-            }
-        }
+        events.publishEvent(new ReportChanged(report.getId(), report.getCreatedAt()));
     }
 
 }
@@ -0,0 +1,168 @@
+package com.anistebbal.starter.services;
+
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Keeps images in an S3-compatible bucket (AWS S3, MinIO, Ceph, R2, ...), so
+ * app nodes share them without a shared disk.
+ *
+ * Uploads stream from the staged file and downloads stream from the
+ * response; a range read is a ranged GET. Presigned URLs let clients fetch
+ * straight from the bucket instead of through an app node. Deletes are
+ * batched, up to 1000 keys per request.
+ */
+public class S3ImageStorage implements ReportImageStorage, AutoCloseable {
+
+    private static final int DELETE_BATCH = 1000;
+
+    private final S3Client client;
+    private final S3Presigner presigner;
+    private final String bucket;
+
+    public S3ImageStorage(S3Client client, S3Presigner presigner, String bucket) {
+        this.client = client;
+        this.presigner = presigner;
+        this.bucket = bucket;
+    }
+
+    // A blank endpoint means AWS itself; path-style addressing is what most self-hosted stores expect
+    public static S3ImageStorage create(String endpoint, String region, boolean pathStyle,
+            AwsCredentialsProvider credentials, String bucket) {
+        // Plain signed uploads instead of aws-chunked ones, which some S3-compatible stores reject
+        S3Configuration configuration = S3Configuration.builder()
+                .pathStyleAccessEnabled(pathStyle)
+                .chunkedEncodingEnabled(false)
+                .build();
+        S3ClientBuilder clientBuilder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(configuration)
+                .httpClientBuilder(UrlConnectionHttpClient.builder());
+        S3Presigner.Builder presignerBuilder = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(configuration);
+        if (endpoint != null && !endpoint.isBlank()) {
+            clientBuilder.endpointOverride(URI.create(endpoint));
+            presignerBuilder.endpointOverride(URI.create(endpoint));
+        }
+        return new S3ImageStorage(clientBuilder.build(), presignerBuilder.build(), bucket);
+    }
+
+    @Override
+    public void put(String key, Path staged, String contentType) throws IOException {
+        try {
+            client.putObject(request -> request.bucket(bucket).key(key).contentType(contentType),
+                    RequestBody.fromFile(staged));
+        } catch (SdkException e) {
+            throw new IOException("Could not upload image " + key, e);
+        }
+    }
+
+    @Override
+    public OptionalLong size(String key) throws IOException {
+        try {
+            return OptionalLong.of(client.headObject(request -> request.bucket(bucket).key(key)).contentLength());
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return OptionalLong.empty();
+            }
+            throw new IOException("Could not read image " + key, e);
+        } catch (SdkException e) {
+            throw new IOException("Could not read image " + key, e);
+        }
+    }
+
+    @Override
+    public InputStream open(String key, long offset, long length) throws IOException {
+        if (length <= 0) {
+            return InputStream.nullInputStream();
+        }
+        try {
+            return client.getObject(request -> request.bucket(bucket).key(key)
+                    .range("bytes=" + offset + "-" + (offset + length - 1)));
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                throw new NoSuchFileException(key);
+            }
+            throw new IOException("Could not read image " + key, e);
+        } catch (SdkException e) {
+            throw new IOException("Could not read image " + key, e);
+        }
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) {
+        return Optional.empty();
+    }
+
+    @Override
+    public URI presign(String key, Duration ttl) {
+        try {
+            return presigner.presignGetObject(request -> request
+                            .signatureDuration(ttl)
+                            .getObjectRequest(get -> get.bucket(bucket).key(key)))
+                    .url().toURI();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Presigned URL is not a valid URI", e);
+        }
+    }
+
+    @Override
+    public void delete(Collection<String> keys) throws IOException {
+        List<ObjectIdentifier> batch = new ArrayList<>(Math.min(keys.size(), DELETE_BATCH));
+        for (String key : keys) {
+            batch.add(ObjectIdentifier.builder().key(key).build());
+            if (batch.size() == DELETE_BATCH) {
+                deleteBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            deleteBatch(batch);
+        }
+    }
+
+    @Override
+    public void close() {
+        presigner.close();
+        client.close();
+    }
+
+    private void deleteBatch(List<ObjectIdentifier> batch) throws IOException {
+        try {
+            var response = client.deleteObjects(request -> request.bucket(bucket)
+                    .delete(Delete.builder().objects(batch).quiet(true).build()));
+            if (response.hasErrors() && !response.errors().isEmpty()) {
+                throw new IOException("Could not delete " + response.errors().size() + " images, first: "
+                        + response.errors().get(0).key() + " (" + response.errors().get(0).code() + ")");
+            }
+        } catch (SdkException e) {
+            throw new IOException("Could not delete images", e);
+        }
+    }
+}
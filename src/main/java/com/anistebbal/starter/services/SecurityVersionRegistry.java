@@ -0,0 +1,59 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.repositories.UserRepository;
+import com.anistebbal.starter.util.BoundedCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * In-memory table of the current security version of each user.
+ *
+ * Tokens carry the version they were issued with ("sv" claim). A token is only
+ * accepted while its version matches the table, so updating or deleting a user
+ * revokes every token issued before. Misses are loaded from the user table;
+ * entries are dropped on {@link UserInvalidation} and otherwise expire after a
+ * short TTL, which bounds staleness if an invalidation is missed.
+ */
+@Service
+public class SecurityVersionRegistry {
+
+    static final int DELETED = -1;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserInvalidationBus userInvalidations;
+
+    @Value("${security.version-table.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${security.version-table.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private BoundedCache<Long, Integer> versions;
+
+    @PostConstruct
+    void init() {
+        versions = new BoundedCache<>(maxEntries, Duration.ofSeconds(ttlSeconds));
+        userInvalidations.subscribe(invalidation -> versions.invalidate(invalidation.userId()));
+    }
+
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        int current = currentVersion(userId);
+        return current != DELETED && current == tokenVersion;
+    }
+
+    public int currentVersion(Long userId) {
+        Integer version = versions.get(userId);
+        if (version == null) {
+            version = userRepository.findSecurityVersionById(userId).orElse(DELETED);
+            versions.put(userId, version);
+        }
+        return version;
+    }
+}
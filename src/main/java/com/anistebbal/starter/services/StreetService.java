@@ -8,6 +8,7 @@ import com.anistebbal.starter.repositories.StreetRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -21,15 +22,17 @@ public class StreetService {
         @Autowired
         private DistrictRepository districtRepository;
 
-        // Fetch all streets
+        // Fetch all streets (districts fetched in the same query)
+        @Transactional(readOnly = true)
         public List<StreetResponseDTO> getAllStreetDTOs() {
-                return streetRepository.findAll()
+                return streetRepository.findAllWithDistrictBy()
                                 .stream()
                                 .map(street -> this.mapToDto(street)) // clear and understandable
                                 .collect(Collectors.toList());
         }
 
         // Create new street
+        @Transactional
         public StreetResponseDTO createStreet(String name, Long districtId) {
                 District district = districtRepository.findById(districtId)
                                 .orElseThrow(() -> new EntityNotFoundException("District not found"));
@@ -43,8 +46,9 @@ public class StreetService {
         }
 
         // Update street
+        @Transactional
         public StreetResponseDTO updateStreet(Long streetId, String newName, Long newDistrictId) {
-                Street street = streetRepository.findById(streetId)
+                Street street = streetRepository.findWithDistrictById(streetId)
                                 .orElseThrow(() -> new EntityNotFoundException("Street not found"));
 
                 if (newName != null && !newName.trim().isEmpty()) {
@@ -0,0 +1,118 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.entities.RevokedToken;
+import com.anistebbal.starter.repositories.RevokedTokenRepository;
+import com.anistebbal.starter.util.BloomFilter;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Revocation list for issued JWTs.
+ *
+ * Revoked "jti" values are persisted and mirrored in an in-memory Bloom
+ * filter. Every authenticated request checks the filter; only a positive
+ * answer (a revoked token or a rare false positive) costs an exact lookup.
+ * New revocations from other nodes are pulled in incrementally, and expired
+ * rows are pruned periodically, after which the filter is rebuilt so it only
+ * ever holds tokens that could still be presented.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${security.revocation.expected-entries:100000}")
+    private int expectedEntries;
+
+    @Value("${security.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    public void revoke(Claims claims) {
+        String jti = claims.getId();
+        if (jti == null) {
+            throw new IllegalArgumentException("Token cannot be revoked: it has no ID.");
+        }
+        Long userId = claims.get("id", Long.class);
+        Instant expiresAt = claims.getExpiration() != null ? claims.getExpiration().toInstant()
+                : Instant.now();
+
+        revokedTokenRepository.save(RevokedToken.builder()
+                .jti(jti)
+                .userId(userId)
+                .expiresAt(expiresAt)
+                .revokedAt(Instant.now())
+                .build());
+        currentFilter().add(jti);
+        log.info("Revoked token {} of user {}", jti, userId);
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || !currentFilter().mightContain(jti)) {
+            return false;
+        }
+        return revokedTokenRepository.existsById(jti);
+    }
+
+    // Picks up revocations made on other nodes
+    @Scheduled(fixedDelayString = "${security.revocation.sync-millis:15000}")
+    public void syncRecent() {
+        if (filter == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        // Overlap by a minute to tolerate clock skew between nodes; re-adding is harmless
+        List<String> recent = revokedTokenRepository.findJtisRevokedSince(lastSync.minusSeconds(60), now);
+        BloomFilter current = filter;
+        recent.forEach(current::add);
+        lastSync = now;
+    }
+
+    @Scheduled(fixedDelayString = "${security.revocation.prune-millis:3600000}")
+    public void pruneExpired() {
+        int removed = revokedTokenRepository.deleteExpired(Instant.now());
+        if (removed > 0) {
+            log.info("Pruned {} expired revoked tokens", removed);
+            rebuild();
+        }
+    }
+
+    private synchronized void rebuild() {
+        Instant now = Instant.now();
+        List<String> active = revokedTokenRepository.findActiveJtis(now);
+        BloomFilter fresh = new BloomFilter(Math.max(expectedEntries, active.size() * 2), falsePositiveRate);
+        active.forEach(fresh::add);
+        filter = fresh;
+        lastSync = now;
+        log.info("Revocation filter rebuilt with {} active entries", active.size());
+    }
+
+    private BloomFilter currentFilter() {
+        BloomFilter current = filter;
+        if (current == null) {
+            rebuild();
+            current = filter;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,415 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.CreateUploadSessionDTO;
+import com.anistebbal.starter.dto.UploadSessionDTO;
+import com.anistebbal.starter.entities.UploadSession;
+import com.anistebbal.starter.repositories.UploadSessionRepository;
+import com.anistebbal.starter.util.TransactionCallbacks;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Resumable report image uploads for clients on flaky connections.
+ *
+ * A client opens a session with the image's size and type, PUTs it in
+ * fixed-size chunks at their offsets, in any order and as often as needed,
+ * and completes it; a dropped connection costs one chunk, not the whole
+ * upload. Each chunk is written straight from the request into its place in
+ * a file (FileChannel.transferFrom), so nothing is buffered in memory, and a
+ * one-byte-per-chunk map next to it records what has arrived, which is what a
+ * resuming client asks for. Completing copies the file into a new one,
+ * hashing it on the way; a chunk PUT still in flight can only reach the old
+ * file, so the bytes that are hashed are the bytes that get stored. Attaching
+ * it to a report checks the hash once more and hands the copy to
+ * {@link ReportImageStore}, a plain rename when storage is local.
+ *
+ * The files live on the node that opened the session, so chunks must reach
+ * that node (route on the upload id), or reports.uploads.dir must be shared.
+ * Sessions expire after reports.uploads.ttl-hours, completed or not.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadSessionService.class);
+
+    private static final Pattern SESSION_ID = Pattern.compile("[0-9a-f]{32}");
+
+    @Autowired
+    private UploadSessionRepository sessionRepository;
+
+    @Autowired
+    private ReportImageStore imageStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${reports.uploads.dir:${user.dir}/uploads/sessions}")
+    private String directory;
+
+    @Value("${reports.uploads.chunk-bytes:1048576}")
+    private int chunkSize = 1024 * 1024;
+
+    @Value("${reports.uploads.max-bytes:20971520}")
+    private long maxBytes = 20L * 1024 * 1024;
+
+    @Value("${reports.uploads.ttl-hours:24}")
+    private long ttlHours = 24;
+
+    // Each open session holds disk space, so a user cannot open many
+    @Value("${reports.uploads.max-active-per-user:5}")
+    private int maxActivePerUser = 5;
+
+    @Transactional
+    public UploadSessionDTO open(Long userId, CreateUploadSessionDTO request) throws IOException {
+        long size = request.getSizeBytes();
+        if (size > maxBytes) {
+            throw new IllegalArgumentException("Image must not exceed " + maxBytes + " bytes.");
+        }
+        if (!ReportImageStore.isRasterImage(request.getContentType())) {
+            throw new IllegalArgumentException("Only JPEG, PNG, WebP, GIF or HEIC images can be uploaded.");
+        }
+        Instant now = Instant.now();
+        if (sessionRepository.countActiveByUserId(userId, now) >= maxActivePerUser) {
+            throw new IllegalArgumentException("Too many unfinished uploads; complete or cancel one first.");
+        }
+
+        String id = UUID.randomUUID().toString().replace("-", "");
+        UploadSession session = sessionRepository.save(UploadSession.builder()
+                .id(id)
+                .userId(userId)
+                .sizeBytes(size)
+                .chunkSize(chunkSize)
+                .contentType(request.getContentType())
+                .createdAt(now)
+                .expiresAt(now.plus(Duration.ofHours(ttlHours)))
+                .build());
+
+        Files.createDirectories(root());
+        TransactionCallbacks.afterRollback(() -> deleteFiles(id));
+        // Both files are sized up front (sparse where the file system allows), since
+        // transferFrom writes nothing past the end; the map holds one zero byte per chunk
+        createSized(dataFile(id), size);
+        createSized(chunkMap(id), chunkCount(session));
+        return describe(session, new byte[chunkCount(session)]);
+    }
+
+    /**
+     * Writes one chunk at its offset. The body must be exactly the chunk:
+     * chunkSize bytes, or whatever is left for the last one. Sending a chunk
+     * again overwrites it, so a client unsure whether one arrived just resends.
+     */
+    public UploadSessionDTO writeChunk(Long userId, String uploadId, long offset, InputStream body)
+            throws IOException {
+        UploadSession session = find(userId, uploadId);
+        if (session.getHash() != null) {
+            throw new IllegalArgumentException("Upload is already complete.");
+        }
+        if (offset < 0 || offset >= session.getSizeBytes() || offset % session.getChunkSize() != 0) {
+            throw new IllegalArgumentException(
+                    "Offset must be a multiple of " + session.getChunkSize() + " below " + session.getSizeBytes() + ".");
+        }
+        long expected = Math.min(session.getChunkSize(), session.getSizeBytes() - offset);
+
+        long written = 0;
+        try (FileChannel data = FileChannel.open(dataFile(uploadId), StandardOpenOption.WRITE)) {
+            ReadableByteChannel in = Channels.newChannel(body);
+            while (written < expected) {
+                // A blocking source returns 0 only at its end
+                long transferred = data.transferFrom(in, offset + written, expected - written);
+                if (transferred <= 0) {
+                    break;
+                }
+                written += transferred;
+            }
+        } catch (NoSuchFileException e) {
+            throw new EntityNotFoundException("Upload not found");
+        }
+        if (written < expected || body.read() != -1) {
+            meterRegistry.counter("reports.uploads.chunks", "result", "rejected").increment();
+            throw new IllegalArgumentException("Chunk at offset " + offset + " must be exactly " + expected + " bytes.");
+        }
+
+        // Marked only after the chunk is written, so a half-written chunk is sent again
+        int index = (int) (offset / session.getChunkSize());
+        try (FileChannel map = FileChannel.open(chunkMap(uploadId), StandardOpenOption.WRITE)) {
+            map.write(ByteBuffer.wrap(new byte[] {1}), index);
+        }
+        meterRegistry.counter("reports.uploads.chunks", "result", "ok").increment();
+        return describe(session, readChunkMap(session));
+    }
+
+    public UploadSessionDTO status(Long userId, String uploadId) throws IOException {
+        UploadSession session = find(userId, uploadId);
+        return describe(session, session.getHash() != null ? null : readChunkMap(session));
+    }
+
+    /**
+     * Checks every chunk has arrived and copies the result to its finished
+     * file, hashing it as it goes. Chunks are written without the session
+     * lock, so one that passed its check just before this can still land in
+     * the chunk file afterwards; it never reaches the copy. With a sha256 from
+     * the client, a mismatch clears the received chunks so all are sent again.
+     * Completing twice returns the same result.
+     */
+    @Transactional
+    public UploadSessionDTO complete(Long userId, String uploadId, String expectedSha256) throws IOException {
+        UploadSession session = lock(userId, uploadId);
+        if (session.getHash() != null) {
+            return describe(session, null);
+        }
+        byte[] chunks = readChunkMap(session);
+        int missing = 0;
+        for (byte chunk : chunks) {
+            if (chunk == 0) {
+                missing++;
+            }
+        }
+        if (missing > 0) {
+            throw new IllegalArgumentException("Upload is missing " + missing + " of " + chunks.length + " chunks.");
+        }
+
+        Path finished = finishedFile(uploadId);
+        TransactionCallbacks.afterRollback(() -> deleteQuietly(finished));
+        String hash = copyAndHash(dataFile(uploadId), finished);
+        if (expectedSha256 != null && !expectedSha256.isBlank() && !expectedSha256.equalsIgnoreCase(hash)) {
+            Files.write(chunkMap(uploadId), new byte[chunks.length]);
+            throw new IllegalArgumentException("Upload does not match its SHA-256; send every chunk again.");
+        }
+        session.setHash(hash);
+        // A chunk arriving from now on finds no file and gets a 404
+        TransactionCallbacks.afterCommit(() -> {
+            deleteQuietly(dataFile(uploadId));
+            deleteQuietly(chunkMap(uploadId));
+        });
+        meterRegistry.counter("reports.uploads.completed").increment();
+        return describe(session, null);
+    }
+
+    /**
+     * Hands a completed upload to the image store and ends the session; returns
+     * the image's Report.imagePath. The finished file is hashed again first, so
+     * nothing that changed on disk since completing is stored under the hash.
+     * Must run in the transaction that saves the report pointing at it.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String attach(Long userId, String uploadId) throws IOException {
+        UploadSession session = lock(userId, uploadId);
+        if (session.getHash() == null) {
+            throw new IllegalArgumentException("Upload is not complete.");
+        }
+        Path finished = finishedFile(uploadId);
+        try {
+            if (!sha256(finished).equals(session.getHash())) {
+                throw new IllegalArgumentException("Upload has changed since it was completed; upload it again.");
+            }
+        } catch (NoSuchFileException e) {
+            throw new EntityNotFoundException("Upload not found");
+        }
+        imageStore.attach(session.getHash(), session.getSizeBytes(), session.getContentType(), finished);
+        sessionRepository.delete(session);
+        TransactionCallbacks.afterCommit(() -> deleteFiles(uploadId));
+        return session.getHash();
+    }
+
+    @Transactional
+    public void cancel(Long userId, String uploadId) {
+        sessionRepository.delete(lock(userId, uploadId));
+        TransactionCallbacks.afterCommit(() -> deleteFiles(uploadId));
+    }
+
+    // Expired sessions, and files whose session is gone (a crash between the two)
+    @Scheduled(fixedDelayString = "${reports.uploads.sweep-millis:3600000}")
+    public void sweep() {
+        int expired = sessionRepository.deleteExpired(Instant.now());
+        if (expired > 0) {
+            log.info("Removed {} expired upload sessions", expired);
+        }
+        Path root = root();
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        // Files of a session being opened appear just before its row commits
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(10));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String id = name.substring(0, name.indexOf('.') < 0 ? name.length() : name.indexOf('.'));
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)
+                        && !sessionRepository.existsById(id)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not sweep upload directory {}: {}", root, e.getMessage());
+        }
+    }
+
+    private UploadSession find(Long userId, String uploadId) {
+        return owned(userId, uploadId, sessionRepository.findById(checkId(uploadId)).orElse(null));
+    }
+
+    private UploadSession lock(Long userId, String uploadId) {
+        return owned(userId, uploadId, sessionRepository.lockById(checkId(uploadId)).orElse(null));
+    }
+
+    // Someone else's session is reported as missing, like a report on another street
+    private UploadSession owned(Long userId, String uploadId, UploadSession session) {
+        if (session == null || !session.getUserId().equals(userId) || !session.getExpiresAt().isAfter(Instant.now())) {
+            throw new EntityNotFoundException("Upload not found");
+        }
+        return session;
+    }
+
+    // The id names files, so nothing but the generated form gets near the file system
+    private static String checkId(String uploadId) {
+        if (uploadId == null || !SESSION_ID.matcher(uploadId).matches()) {
+            throw new EntityNotFoundException("Upload not found");
+        }
+        return uploadId;
+    }
+
+    private byte[] readChunkMap(UploadSession session) throws IOException {
+        try {
+            return Files.readAllBytes(chunkMap(session.getId()));
+        } catch (NoSuchFileException e) {
+            throw new EntityNotFoundException("Upload not found");
+        }
+    }
+
+    // chunks is null for a completed session
+    private static UploadSessionDTO describe(UploadSession session, byte[] chunks) {
+        List<UploadSessionDTO.Range> received = new ArrayList<>();
+        long receivedBytes = 0;
+        if (chunks == null) {
+            received.add(new UploadSessionDTO.Range(0, session.getSizeBytes() - 1));
+            receivedBytes = session.getSizeBytes();
+        } else {
+            UploadSessionDTO.Range run = null;
+            for (int i = 0; i < chunks.length; i++) {
+                if (chunks[i] == 0) {
+                    run = null;
+                    continue;
+                }
+                long start = (long) i * session.getChunkSize();
+                long end = Math.min(start + session.getChunkSize(), session.getSizeBytes()) - 1;
+                if (run == null) {
+                    run = new UploadSessionDTO.Range(start, end);
+                    received.add(run);
+                } else {
+                    run.setEnd(end);
+                }
+                receivedBytes += end - start + 1;
+            }
+        }
+        return UploadSessionDTO.builder()
+                .uploadId(session.getId())
+                .sizeBytes(session.getSizeBytes())
+                .chunkSize(session.getChunkSize())
+                .received(received)
+                .receivedBytes(receivedBytes)
+                .complete(session.getHash() != null)
+                .sha256(session.getHash())
+                .expiresAt(session.getExpiresAt())
+                .build();
+    }
+
+    private static int chunkCount(UploadSession session) {
+        return (int) ((session.getSizeBytes() + session.getChunkSize() - 1) / session.getChunkSize());
+    }
+
+    private static void createSized(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+        }
+    }
+
+    private static String sha256(Path file) throws IOException {
+        return copyAndHash(file, null);
+    }
+
+    // Hashes source, writing it to target as well unless target is null
+    private static String copyAndHash(Path source, Path target) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = target == null ? null : FileChannel.open(target, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (in.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer.duplicate());
+                while (out != null && buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void deleteFiles(String uploadId) {
+        deleteQuietly(dataFile(uploadId));
+        deleteQuietly(chunkMap(uploadId));
+        deleteQuietly(finishedFile(uploadId));
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // The sweep removes it later
+            log.warn("Could not delete upload file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Path root() {
+        return Paths.get(directory).toAbsolutePath();
+    }
+
+    private Path dataFile(String uploadId) {
+        return root().resolve(uploadId + ".part");
+    }
+
+    private Path chunkMap(String uploadId) {
+        return root().resolve(uploadId + ".chunks");
+    }
+
+    // Written only by complete, under the session lock
+    private Path finishedFile(String uploadId) {
+        return root().resolve(uploadId + ".done");
+    }
+}
@@ -0,0 +1,10 @@
+package com.anistebbal.starter.services;
+
+import java.util.List;
+
+/**
+ * Signals that cached state for a user (principal, security version) is stale.
+ * Carries every phone number the user was reachable under, old and new.
+ */
+public record UserInvalidation(Long userId, List<String> phones) {
+}
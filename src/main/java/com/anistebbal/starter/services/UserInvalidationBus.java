@@ -0,0 +1,18 @@
+package com.anistebbal.starter.services;
+
+import java.util.function.Consumer;
+
+/**
+ * Hook used to broadcast user changes to every cache that holds user state.
+ *
+ * The default {@link InJvmUserInvalidationBus} only reaches listeners in this
+ * JVM. Multi-node deployments can register their own bean (e.g. backed by
+ * Redis pub/sub or Postgres NOTIFY) that also delivers remote invalidations to
+ * the local listeners.
+ */
+public interface UserInvalidationBus {
+
+    void publish(UserInvalidation invalidation);
+
+    void subscribe(Consumer<UserInvalidation> listener);
+}
@@ -7,18 +7,16 @@ import com.anistebbal.starter.dto.UserResponseDto;
 import com.anistebbal.starter.entities.Street;
 import com.anistebbal.starter.entities.User;
 import com.anistebbal.starter.repositories.StreetRepository;
+import com.anistebbal.starter.exceptions.ServiceOverloadedException;
 import com.anistebbal.starter.repositories.UserRepository;
-// import org.springframework.security.authentication.Authentication;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.security.authentication.AuthenticationManager;
 
-import org.springframework.security.core.Authentication;
-
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,11 +33,17 @@ public class UserService {
     private JWTService jwtService;
 
     @Autowired
-    AuthenticationManager authManager;
+    private LoginWorkerPool loginWorkerPool;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
 
-    private BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(12);
+    @Autowired
+    private PasswordEncoder encoder;
     @Autowired
     private StreetRepository streetRepository;
+    @Autowired
+    private UserInvalidationBus userInvalidations;
 
     private User buildUserFromDto(RegisterUserDto dto, Street street) {
         return User.builder()
@@ -74,6 +78,7 @@ public class UserService {
 
         try {
             User saved = userRepository.save(user);
+            userInvalidations.publish(new UserInvalidation(saved.getId(), List.of(saved.getPhone())));
             return mapToResponseDto(saved);
         } catch (DataIntegrityViolationException ex) {
             throw new IllegalArgumentException(buildDuplicateErrorMessage(ex, dto));
@@ -100,10 +105,14 @@ public class UserService {
         Street street = streetRepository.findById(dto.getStreetId())
                 .orElseThrow(() -> new EntityNotFoundException("Street not found with ID: " + dto.getStreetId()));
 
+        String previousPhone = existingUser.getPhone();
         mapDtoToExistingUser(existingUser, dto, street);
+        existingUser.setSecurityVersion(existingUser.getSecurityVersion() + 1);
 
         try {
             User savedUser = userRepository.save(existingUser);
+            userInvalidations.publish(new UserInvalidation(savedUser.getId(),
+                    List.of(previousPhone, savedUser.getPhone())));
 
             return mapToResponseDto(savedUser);
         } catch (DataIntegrityViolationException ex) {
@@ -113,10 +122,10 @@ public class UserService {
 
     // Delete a user
     public void deleteUser(Long userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new EntityNotFoundException("User not found with ID: " + userId);
-        }
-        userRepository.deleteById(userId);
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new EntityNotFoundException("User not found with ID: " + userId));
+        userRepository.delete(user);
+        userInvalidations.publish(new UserInvalidation(userId, List.of(user.getPhone())));
     }
 
     // Get users by street ID
@@ -153,26 +162,49 @@ public class UserService {
 
     public LoginResponseDto verify(LoginRequestDTO user) {
         log.info("Attempting login for phone: {}", user.getPhone());
+        Timer.Sample sample = Timer.start(meterRegistry);
 
         try {
+            // Single lookup; the hash check then runs off the request thread
             User foundUser = userRepository.findByPhone(user.getPhone())
                     .orElseThrow(() -> new EntityNotFoundException("User not found with phone: " + user.getPhone()));
 
-            Authentication authentication = authManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(user.getPhone(), user.getPassword()));
+            String storedHash = foundUser.getPassword();
+            boolean matches = storedHash != null
+                    && loginWorkerPool.run(() -> encoder.matches(user.getPassword(), storedHash));
 
-            if (authentication.isAuthenticated()) {
+            if (matches) {
+                rehashIfCostChanged(foundUser, user.getPassword());
                 String token = jwtService.generateToken(foundUser);
                 return new LoginResponseDto(token, foundUser.getRole(), foundUser.getUsername(), foundUser.getPhone());
             } else {
                 throw new IllegalArgumentException("Invalid credentials");
             }
 
-        } catch (EntityNotFoundException | IllegalArgumentException e) {
+        } catch (EntityNotFoundException | IllegalArgumentException | ServiceOverloadedException e) {
             throw e;
         } catch (Exception e) {
             throw new IllegalArgumentException("Invalid credentials");
+        } finally {
+            sample.stop(Timer.builder("auth.login")
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
         }
     }
 
+    // Transparently moves the stored hash to the currently calibrated cost
+    private void rehashIfCostChanged(User foundUser, String rawPassword) {
+        if (!encoder.upgradeEncoding(foundUser.getPassword())) {
+            return;
+        }
+        try {
+            foundUser.setPassword(loginWorkerPool.run(() -> encoder.encode(rawPassword)));
+            userRepository.save(foundUser);
+            userInvalidations.publish(new UserInvalidation(foundUser.getId(), List.of(foundUser.getPhone())));
+            log.info("Re-hashed password for user {} at the current cost", foundUser.getId());
+        } catch (RuntimeException e) {
+            // The login itself succeeded; the re-hash is retried on the next login
+            log.warn("Password re-hash skipped for user {}: {}", foundUser.getId(), e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,164 @@
+package com.anistebbal.starter.util;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Size-bounded, expiry-aware LRU cache.
+ *
+ * Keys are spread over a fixed number of segments, each guarded by its own
+ * lock, so concurrent request threads rarely contend. Every entry carries its
+ * own expiry instant; expired entries are dropped lazily on access.
+ * A cache created with {@code maxEntries == 0} never stores anything.
+ */
+public class BoundedCache<K, V> {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final long defaultTtlMillis;
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedCache(int maxEntries, Duration defaultTtl) {
+        this(maxEntries, defaultTtl, System::currentTimeMillis);
+    }
+
+    @SuppressWarnings("unchecked")
+    public BoundedCache(int maxEntries, Duration defaultTtl, LongSupplier clock) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("maxEntries must not be negative");
+        }
+        this.defaultTtlMillis = defaultTtl.toMillis();
+        this.clock = clock;
+        this.segments = new Segment[SEGMENTS];
+        int perSegment = maxEntries == 0 ? 0 : Math.max(1, (maxEntries + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>(perSegment);
+        }
+    }
+
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        long now = clock.getAsLong();
+        synchronized (segment) {
+            Entry<V> entry = segment.map.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (entry.expiresAtMillis <= now) {
+                segment.map.remove(key);
+                evictions.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    public void put(K key, V value) {
+        put(key, value, clock.getAsLong() + defaultTtlMillis);
+    }
+
+    /**
+     * Stores a value until the given instant, capped by the default TTL.
+     */
+    public void put(K key, V value, long expiresAtMillis) {
+        Segment<K, V> segment = segmentFor(key);
+        if (segment.capacity == 0) {
+            return;
+        }
+        long expiry = Math.min(expiresAtMillis, clock.getAsLong() + defaultTtlMillis);
+        synchronized (segment) {
+            segment.map.put(key, new Entry<>(value, expiry));
+            if (segment.map.size() > segment.capacity) {
+                Iterator<K> eldest = segment.map.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            if (segment.map.remove(key) != null) {
+                evictions.increment();
+            }
+        }
+    }
+
+    public void invalidateIf(Predicate<? super K> predicate) {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                Iterator<K> keys = segment.map.keySet().iterator();
+                while (keys.hasNext()) {
+                    if (predicate.test(keys.next())) {
+                        keys.remove();
+                        evictions.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                evictions.add(segment.map.size());
+                segment.map.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.map.size();
+            }
+        }
+        return size;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (SEGMENTS - 1)];
+    }
+
+    private static final class Segment<K, V> {
+        private final int capacity;
+        private final Map<K, Entry<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+
+        private Segment(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAtMillis) {
+    }
+}
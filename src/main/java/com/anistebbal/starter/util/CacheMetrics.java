@@ -0,0 +1,27 @@
+package com.anistebbal.starter.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Publishes the counters of a BoundedCache as Micrometer meters tagged with the cache name
+public final class CacheMetrics {
+
+    private CacheMetrics() {
+    }
+
+    public static void bind(MeterRegistry registry, String cacheName, BoundedCache<?, ?> cache) {
+        FunctionCounter.builder("cache.gets", cache, BoundedCache::hitCount)
+                .tag("cache", cacheName).tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, BoundedCache::missCount)
+                .tag("cache", cacheName).tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", cache, BoundedCache::evictionCount)
+                .tag("cache", cacheName)
+                .register(registry);
+        Gauge.builder("cache.size", cache, BoundedCache::size)
+                .tag("cache", cacheName)
+                .register(registry);
+    }
+}
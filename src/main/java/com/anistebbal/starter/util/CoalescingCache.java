@@ -0,0 +1,55 @@
+package com.anistebbal.starter.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * {@link BoundedCache} whose misses are loaded through a {@link SingleFlight}.
+ *
+ * Every invalidation bumps a generation counter. A load that overlapped an
+ * invalidation still returns its result to its callers but does not store it,
+ * so a value read just before a change commits cannot outlive the
+ * invalidation meant to remove it.
+ */
+public class CoalescingCache<K, V> {
+
+    private final BoundedCache<K, V> cache;
+    private final SingleFlight<K, V> loads = new SingleFlight<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public CoalescingCache(int maxEntries, Duration ttl) {
+        this.cache = new BoundedCache<>(maxEntries, ttl);
+    }
+
+    public V get(K key, Supplier<V> loader) {
+        V cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        return loads.load(key, () -> {
+            long startedAt = generation.get();
+            V value = loader.get();
+            if (value != null && generation.get() == startedAt) {
+                cache.put(key, value);
+            }
+            return value;
+        });
+    }
+
+    public void invalidateIf(Predicate<? super K> predicate) {
+        generation.incrementAndGet();
+        cache.invalidateIf(predicate);
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    // Exposed for metrics binding
+    public BoundedCache<K, V> entries() {
+        return cache;
+    }
+}
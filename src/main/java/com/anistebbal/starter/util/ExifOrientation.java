@@ -0,0 +1,139 @@
+package com.anistebbal.starter.util;
+
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The EXIF orientation of a JPEG (1 = upright ... 8 = rotated 90° counter-clockwise).
+ *
+ * Phones store pixels as the sensor saw them and record the rotation in EXIF,
+ * so an image re-encoded without its metadata has to be turned upright first.
+ * Only the JPEG header segments are read, never the image data.
+ */
+public final class ExifOrientation {
+
+    public static final int NORMAL = 1;
+
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private ExifOrientation() {
+    }
+
+    // NORMAL for anything that is not a JPEG or has no usable orientation
+    public static int read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        try {
+            if (data.readUnsignedShort() != 0xFFD8) {
+                return NORMAL;
+            }
+            while (true) {
+                int marker = data.readUnsignedShort();
+                // Metadata segments all come before the start of scan
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) {
+                    return NORMAL;
+                }
+                int length = data.readUnsignedShort() - 2;
+                if (length < 0) {
+                    return NORMAL;
+                }
+                if (marker == 0xFFE1) {
+                    int orientation = fromExif(data.readNBytes(length));
+                    if (orientation != 0) {
+                        return orientation;
+                    }
+                } else {
+                    data.skipNBytes(length);
+                }
+            }
+        } catch (EOFException e) {
+            return NORMAL;
+        }
+    }
+
+    // Redraws the image upright; NORMAL returns it unchanged
+    public static BufferedImage apply(BufferedImage image, int orientation) {
+        if (orientation <= NORMAL || orientation > 8) {
+            return image;
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean swapsSides = orientation >= 5;
+        AffineTransform transform = new AffineTransform();
+        switch (orientation) {
+            case 2 -> { // mirrored
+                transform.scale(-1, 1);
+                transform.translate(-width, 0);
+            }
+            case 3 -> { // upside down
+                transform.translate(width, height);
+                transform.rotate(Math.PI);
+            }
+            case 4 -> { // mirrored upside down
+                transform.scale(1, -1);
+                transform.translate(0, -height);
+            }
+            case 5 -> { // transposed
+                transform.rotate(-Math.PI / 2);
+                transform.scale(-1, 1);
+            }
+            case 6 -> { // turned 90° clockwise
+                transform.translate(height, 0);
+                transform.rotate(Math.PI / 2);
+            }
+            case 7 -> { // transversed
+                transform.scale(-1, 1);
+                transform.translate(-height, 0);
+                transform.translate(0, width);
+                transform.rotate(3 * Math.PI / 2);
+            }
+            default -> { // 8: turned 90° counter-clockwise
+                transform.translate(0, width);
+                transform.rotate(3 * Math.PI / 2);
+            }
+        }
+        BufferedImage upright = new BufferedImage(swapsSides ? height : width, swapsSides ? width : height,
+                BufferedImage.TYPE_INT_RGB);
+        var graphics = upright.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return upright;
+    }
+
+    // 0 when the segment is not EXIF or carries no orientation
+    private static int fromExif(byte[] segment) {
+        if (segment.length < 14 || segment[0] != 'E' || segment[1] != 'x' || segment[2] != 'i'
+                || segment[3] != 'f' || segment[4] != 0 || segment[5] != 0) {
+            return 0;
+        }
+        try {
+            // Offsets inside EXIF are relative to the TIFF header that follows "Exif\0\0"
+            ByteBuffer tiff = ByteBuffer.wrap(segment, 6, segment.length - 6).slice();
+            if (tiff.get(0) == 'I' && tiff.get(1) == 'I') {
+                tiff.order(ByteOrder.LITTLE_ENDIAN);
+            } else if (tiff.get(0) != 'M' || tiff.get(1) != 'M') {
+                return 0;
+            }
+            int ifd = tiff.getInt(4);
+            int entries = Short.toUnsignedInt(tiff.getShort(ifd));
+            for (int i = 0; i < entries; i++) {
+                int entry = ifd + 2 + i * 12;
+                if (Short.toUnsignedInt(tiff.getShort(entry)) == ORIENTATION_TAG) {
+                    int value = Short.toUnsignedInt(tiff.getShort(entry + 8));
+                    return value >= 1 && value <= 8 ? value : 0;
+                }
+            }
+            return 0;
+        } catch (IndexOutOfBoundsException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.anistebbal.starter.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * In-memory inverted index from terms to document ids, with a small payload
+ * per document for filters that are not terms.
+ *
+ * Posting lists are kept sorted, so a query walks the shortest list from the
+ * highest id down and probes the others: the rarest term bounds the work, and
+ * hits come back newest first. Re-putting a document replaces its terms.
+ * Reads share a lock and run concurrently; writes are exclusive but only
+ * touch the postings of the document being changed.
+ */
+public class InvertedIndex<D> {
+
+    private final Map<String, NavigableSet<Long>> postings = new HashMap<>();
+    private final Map<Long, Entry<D>> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private record Entry<D>(Set<String> terms, D payload) {
+    }
+
+    public record Hits(int total, List<Long> ids) {
+    }
+
+    public void put(long id, Collection<String> terms, D payload) {
+        Set<String> unique = Set.copyOf(terms);
+        lock.writeLock().lock();
+        try {
+            Entry<D> previous = documents.put(id, new Entry<>(unique, payload));
+            if (previous != null) {
+                previous.terms().stream()
+                        .filter(term -> !unique.contains(term))
+                        .forEach(term -> removePosting(term, id));
+            }
+            unique.forEach(term -> postings.computeIfAbsent(term, t -> new TreeSet<>()).add(id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Entry<D> previous = documents.remove(id);
+            if (previous == null) {
+                return false;
+            }
+            previous.terms().forEach(term -> removePosting(term, id));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Documents containing every term and whose payload passes the filter.
+     * Returns the total number of matches and at most limit ids, highest first.
+     */
+    public Hits search(Collection<String> terms, Predicate<? super D> filter, int limit) {
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("At least one term is required.");
+        }
+        lock.readLock().lock();
+        try {
+            List<NavigableSet<Long>> lists = new ArrayList<>();
+            for (String term : new LinkedHashSet<>(terms)) {
+                NavigableSet<Long> list = postings.get(term);
+                if (list == null) {
+                    return new Hits(0, List.of());
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+
+            int total = 0;
+            List<Long> ids = new ArrayList<>(Math.min(limit, lists.get(0).size()));
+            for (Long id : lists.get(0).descendingSet()) {
+                if (containedInRest(lists, id) && filter.test(documents.get(id).payload())) {
+                    total++;
+                    if (ids.size() < limit) {
+                        ids.add(id);
+                    }
+                }
+            }
+            return new Hits(total, ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean containedInRest(List<NavigableSet<Long>> lists, Long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void removePosting(String term, long id) {
+        NavigableSet<Long> list = postings.get(term);
+        if (list != null && list.remove(id) && list.isEmpty()) {
+            postings.remove(term);
+        }
+    }
+}
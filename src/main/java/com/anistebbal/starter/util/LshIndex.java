@@ -0,0 +1,89 @@
+package com.anistebbal.starter.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Locality-sensitive hashing over MinHash signatures.
+ *
+ * A signature is cut into bands of rows; two documents become candidates
+ * when any band matches exactly. With b bands of r rows, pairs of similarity
+ * s are found with probability 1 - (1 - s^r)^b, a curve that rises steeply
+ * around (1/b)^(1/r), so lookups skip dissimilar documents instead of
+ * comparing against all of them. Candidates still need checking with
+ * {@link MinHash#similarity}. Not thread-safe; callers synchronize.
+ */
+public class LshIndex {
+
+    private final int bands;
+    private final int rows;
+    private final List<Map<Long, Set<Long>>> buckets;
+    private final Map<Long, long[]> signatures = new HashMap<>();
+
+    public LshIndex(int bands, int rows) {
+        this.bands = bands;
+        this.rows = rows;
+        this.buckets = new ArrayList<>(bands);
+        for (int band = 0; band < bands; band++) {
+            buckets.add(new HashMap<>());
+        }
+    }
+
+    public void put(long id, long[] signature) {
+        if (signature.length != bands * rows) {
+            throw new IllegalArgumentException("Expected a signature of " + bands * rows + " values");
+        }
+        remove(id);
+        signatures.put(id, signature);
+        for (int band = 0; band < bands; band++) {
+            buckets.get(band).computeIfAbsent(bandKey(signature, band), key -> new HashSet<>()).add(id);
+        }
+    }
+
+    public boolean remove(long id) {
+        long[] signature = signatures.remove(id);
+        if (signature == null) {
+            return false;
+        }
+        for (int band = 0; band < bands; band++) {
+            long key = bandKey(signature, band);
+            Set<Long> bucket = buckets.get(band).get(key);
+            if (bucket != null && bucket.remove(id) && bucket.isEmpty()) {
+                buckets.get(band).remove(key);
+            }
+        }
+        return true;
+    }
+
+    public Set<Long> candidates(long[] signature) {
+        Set<Long> candidates = new HashSet<>();
+        for (int band = 0; band < bands; band++) {
+            Set<Long> bucket = buckets.get(band).get(bandKey(signature, band));
+            if (bucket != null) {
+                candidates.addAll(bucket);
+            }
+        }
+        return candidates;
+    }
+
+    public long[] signature(long id) {
+        return signatures.get(id);
+    }
+
+    public boolean isEmpty() {
+        return signatures.isEmpty();
+    }
+
+    // Colliding keys only add candidates, which are verified anyway
+    private long bandKey(long[] signature, int band) {
+        long key = band;
+        for (int row = band * rows; row < (band + 1) * rows; row++) {
+            key = key * 31 + signature[row];
+        }
+        return key;
+    }
+}
@@ -0,0 +1,79 @@
+package com.anistebbal.starter.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash signatures over sets of strings.
+ *
+ * Each of the n slots keeps the minimum of one seeded hash over the set, so
+ * the share of equal slots in two signatures estimates the Jaccard
+ * similarity of the sets (standard error about 1/sqrt(n)). Signatures have a
+ * fixed size however long the text is, and comparing two costs n long
+ * comparisons. Instances are immutable; signatures are only comparable when
+ * produced by instances with the same size and seed.
+ */
+public class MinHash {
+
+    private final long[] seeds;
+
+    public MinHash(int numHashes, long seed) {
+        if (numHashes < 1) {
+            throw new IllegalArgumentException("numHashes must be positive");
+        }
+        this.seeds = new SplittableRandom(seed).longs(numHashes).toArray();
+    }
+
+    public int size() {
+        return seeds.length;
+    }
+
+    public long[] signature(Collection<String> elements) {
+        long[] signature = new long[seeds.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (String element : elements) {
+            long hash = hash64(element);
+            for (int i = 0; i < seeds.length; i++) {
+                long value = mix(hash ^ seeds[i]);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    public static double similarity(long[] a, long[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Signatures have different sizes");
+        }
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    // FNV-1a over UTF-8 bytes, then the murmur3 finalizer
+    private static long hash64(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
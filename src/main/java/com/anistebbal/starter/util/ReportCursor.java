@@ -0,0 +1,34 @@
+package com.anistebbal.starter.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a report page, ordered by (createdAt, id) descending.
+ * Serialized as an opaque URL-safe token so clients cannot depend on its shape.
+ */
+public record ReportCursor(LocalDate createdAt, Long id) {
+
+    // Sorts before every real row of the range, i.e. "start from the newest report"
+    public static ReportCursor first(LocalDate endDate) {
+        return new ReportCursor(endDate.plusDays(1), Long.MAX_VALUE);
+    }
+
+    public String encode() {
+        String raw = createdAt + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ReportCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new ReportCursor(LocalDate.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid page cursor.");
+        }
+    }
+}
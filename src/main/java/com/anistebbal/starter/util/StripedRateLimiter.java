@@ -0,0 +1,106 @@
+package com.anistebbal.starter.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket rate limiter keyed by an arbitrary string (phone, IP, ...).
+ *
+ * Buckets live in lock-striped LRU maps: threads only contend when their keys
+ * hash to the same stripe, and each stripe holds a bounded number of buckets.
+ * When a stripe is full the least recently used (i.e. idle) bucket is dropped;
+ * a dropped bucket would have refilled anyway, so eviction never loosens a
+ * limit that is actively being hit.
+ */
+public class StripedRateLimiter {
+
+    private static final int STRIPES = 32;
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoClock;
+    private final Stripe[] stripes;
+
+    public StripedRateLimiter(int capacity, int refillTokens, long refillPeriod, TimeUnit unit, int maxKeys) {
+        this(capacity, refillTokens, refillPeriod, unit, maxKeys, System::nanoTime);
+    }
+
+    public StripedRateLimiter(int capacity, int refillTokens, long refillPeriod, TimeUnit unit, int maxKeys,
+            LongSupplier nanoClock) {
+        if (capacity <= 0 || refillTokens <= 0 || refillPeriod <= 0) {
+            throw new IllegalArgumentException("capacity and refill rate must be positive");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = (double) refillTokens / unit.toNanos(refillPeriod);
+        this.nanoClock = nanoClock;
+        this.stripes = new Stripe[STRIPES];
+        int perStripe = Math.max(1, (maxKeys + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * Takes one token for the key.
+     *
+     * @return 0 if the call is allowed, otherwise the nanoseconds until a token
+     *         becomes available
+     */
+    public long tryAcquire(String key) {
+        Stripe stripe = stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+        long now = nanoClock.getAsLong();
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                stripe.buckets.put(key, bucket);
+                if (stripe.buckets.size() > stripe.maxKeys) {
+                    Iterator<String> eldest = stripe.buckets.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+            } else {
+                bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.lastRefillNanos) * tokensPerNano);
+                bucket.lastRefillNanos = now;
+            }
+
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - bucket.tokens) / tokensPerNano);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.buckets.size();
+            }
+        }
+        return size;
+    }
+
+    private static final class Stripe {
+        private final int maxKeys;
+        private final Map<String, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true);
+
+        private Stripe(int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+
+        private Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.lastRefillNanos = now;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.anistebbal.starter.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Splits report text into search terms for Arabic, French and English.
+ *
+ * Text is decomposed and stripped of combining marks, which removes French
+ * accents and Arabic harakat in one step, then lower-cased. Arabic letter
+ * variants are folded (hamza forms of alef, ta marbuta, alef maqsura, tatweel)
+ * and the definite article "ال" is dropped from longer words, so "الماء" and
+ * "ماء" match. Indexing and querying must use the same instance of these rules.
+ */
+public final class TextTokenizer {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    // Compared after normalization, so listed in their usual spelling and folded on load
+    private static final Set<String> STOP_WORDS = Stream.of(
+            "the", "and", "of", "in", "on", "at", "is", "to", "for", "with",
+            "le", "la", "les", "de", "des", "du", "et", "un", "une", "en", "au", "aux", "dans", "sur",
+            "في", "من", "على", "إلى", "عن", "مع")
+            .map(TextTokenizer::normalize)
+            .collect(Collectors.toUnmodifiableSet());
+
+    private TextTokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        for (String raw : SEPARATORS.split(normalize(text))) {
+            String token = raw.length() > 4 && raw.startsWith("ال") ? raw.substring(2) : raw;
+            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static String normalize(String text) {
+        String stripped = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("");
+        return foldArabic(stripped.toLowerCase(Locale.ROOT));
+    }
+
+    private static String foldArabic(String text) {
+        StringBuilder folded = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case 'أ', 'إ', 'آ', 'ٱ' -> folded.append('ا');
+                case 'ة' -> folded.append('ه');
+                case 'ى' -> folded.append('ي');
+                case 'ـ' -> {
+                    // tatweel is only a stretching character
+                }
+                default -> folded.append(c);
+            }
+        }
+        return folded.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package com.anistebbal.starter.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.util.Base64;
+
+// HMAC-SHA256 signatures for URLs that grant access to one resource until they expire
+public class UrlSigner {
+
+    private final SecretKeySpec key;
+    private final Clock clock;
+
+    public UrlSigner(byte[] secret) {
+        this(secret, Clock.systemUTC());
+    }
+
+    public UrlSigner(byte[] secret, Clock clock) {
+        if (secret.length < 32) {
+            throw new IllegalArgumentException("URL signing secret must be at least 32 bytes");
+        }
+        this.key = new SecretKeySpec(secret, "HmacSHA256");
+        this.clock = clock;
+    }
+
+    public long expiresAfter(long seconds) {
+        return clock.instant().getEpochSecond() + seconds;
+    }
+
+    public String sign(String resource, long expiresEpochSecond) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            byte[] digest = mac.doFinal((resource + "\n" + expiresEpochSecond).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    // Constant-time, so a forged signature cannot be found byte by byte
+    public boolean verify(String resource, long expiresEpochSecond, String signature) {
+        if (signature == null || clock.instant().getEpochSecond() > expiresEpochSecond) {
+            return false;
+        }
+        return MessageDigest.isEqual(sign(resource, expiresEpochSecond).getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+}
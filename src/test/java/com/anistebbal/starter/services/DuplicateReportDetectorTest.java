@@ -0,0 +1,126 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.ReportResponseCreationDTO;
+import com.anistebbal.starter.entities.City;
+import com.anistebbal.starter.entities.District;
+import com.anistebbal.starter.entities.Street;
+import com.anistebbal.starter.entities.User;
+import com.anistebbal.starter.repositories.CityRepository;
+import com.anistebbal.starter.repositories.DistrictRepository;
+import com.anistebbal.starter.repositories.ReportDailyRollupRepository;
+import com.anistebbal.starter.repositories.ReportRepository;
+import com.anistebbal.starter.repositories.StreetRepository;
+import com.anistebbal.starter.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@SpringBootTest
+class DuplicateReportDetectorTest {
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ReportRollupService reportRollupService;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private DistrictRepository districtRepository;
+
+    @Autowired
+    private StreetRepository streetRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private ReportDailyRollupRepository rollupRepository;
+
+    private User resident;
+    private User neighbour;
+    private User elsewhere;
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        City city = cityRepository.save(City.builder().name("Duplicate City").build());
+        District district = districtRepository.save(District.builder().name("Duplicate District").city(city).build());
+        Street street = streetRepository.save(Street.builder().name("Pipe Street").district(district).build());
+        Street other = streetRepository.save(Street.builder().name("Dry Street").district(district).build());
+        resident = citizen("dup-resident", "0555555551", street);
+        neighbour = citizen("dup-neighbour", "0555555552", street);
+        elsewhere = citizen("dup-elsewhere", "0555555553", other);
+    }
+
+    @AfterEach
+    void tearDown() {
+        rollupRepository.deleteAllInBatch();
+        reportRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        streetRepository.deleteAllInBatch();
+        districtRepository.deleteAllInBatch();
+        cityRepository.deleteAllInBatch();
+        reportRollupService.rebuild(today, today);
+    }
+
+    @Test
+    void burstOfSimilarReports_linksToTheFirst() throws IOException {
+        ReportResponseCreationDTO first = reportService.createReport(
+                resident.getId(), "Burst water pipe flooding the street near the bakery", null);
+        ReportResponseCreationDTO second = reportService.createReport(
+                neighbour.getId(), "Burst pipe, water flooding the street near bakery!", null);
+        ReportResponseCreationDTO third = reportService.createReport(
+                resident.getId(), "Water pipe burst flooding street near the bakery", null);
+        ReportResponseCreationDTO unrelated = reportService.createReport(
+                neighbour.getId(), "Streetlight broken at the corner", null);
+        ReportResponseCreationDTO otherStreet = reportService.createReport(
+                elsewhere.getId(), "Burst water pipe flooding the street near the bakery", null);
+
+        assertNull(first.getDuplicateOf());
+        assertEquals(first.getId(), second.getDuplicateOf());
+        assertEquals(first.getId(), third.getDuplicateOf());
+        assertNull(unrelated.getDuplicateOf());
+        assertNull(otherStreet.getDuplicateOf());
+
+        assertEquals(2, reportService.getReportAnalytics(today, today).getDuplicateReports());
+    }
+
+    @Test
+    void deletingTheCanonicalReport_handsItsGroupToTheNextOne() throws IOException {
+        Long first = reportService.createReport(resident.getId(), "Pothole in front of house 12", null).getId();
+        Long second = reportService.createReport(neighbour.getId(), "Pothole in front of house 12", null).getId();
+
+        reportService.deleteReportByUser(resident.getId(), resident.getStreet().getId(), first);
+
+        ReportResponseCreationDTO third = reportService.createReport(
+                neighbour.getId(), "Deep pothole in front of house 12", null);
+        assertEquals(second, third.getDuplicateOf());
+        // The deleted canonical report leaves one duplicate behind in the counts
+        assertEquals(2, reportService.getReportAnalytics(today, today).getDuplicateReports());
+    }
+
+    private User citizen(String username, String phone, Street street) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .phone(phone)
+                .password("x")
+                .role("CITIZEN")
+                .street(street)
+                .build());
+    }
+}
@@ -0,0 +1,253 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.ImageVariant;
+import com.anistebbal.starter.entities.City;
+import com.anistebbal.starter.entities.District;
+import com.anistebbal.starter.entities.Street;
+import com.anistebbal.starter.entities.User;
+import com.anistebbal.starter.repositories.CityRepository;
+import com.anistebbal.starter.repositories.DistrictRepository;
+import com.anistebbal.starter.repositories.ReportDailyRollupRepository;
+import com.anistebbal.starter.repositories.ReportImageRepository;
+import com.anistebbal.starter.repositories.ReportRepository;
+import com.anistebbal.starter.repositories.StreetRepository;
+import com.anistebbal.starter.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@SpringBootTest
+class ImageVariantPipelineTest {
+
+    @TempDir
+    Path imageDir;
+
+    @Autowired
+    private ImageVariantPipeline imageVariants;
+
+    @Autowired
+    private ReportImageService reportImageService;
+
+    @Autowired
+    private ReportImageStore imageStore;
+
+    @Autowired
+    private ReportImageStorage storage;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ReportRollupService reportRollupService;
+
+    @Autowired
+    private ReportImageRepository imageRepository;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private DistrictRepository districtRepository;
+
+    @Autowired
+    private StreetRepository streetRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private ReportDailyRollupRepository rollupRepository;
+
+    private Object previousStaging;
+    private Object previousRoot;
+    private User citizen;
+    private Long reportId;
+    private String hash;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        previousStaging = ReflectionTestUtils.getField(imageStore, "stagingDirectory");
+        previousRoot = ReflectionTestUtils.getField(storage, "root");
+        ReflectionTestUtils.setField(imageStore, "stagingDirectory", imageDir.resolve(".tmp").toString());
+        ReflectionTestUtils.setField(storage, "root", imageDir);
+
+        City city = cityRepository.save(City.builder().name("Variant City").build());
+        District district = districtRepository.save(District.builder().name("Variant District").city(city).build());
+        Street street = streetRepository.save(Street.builder().name("Variant Street").district(district).build());
+        citizen = userRepository.save(User.builder()
+                .username("variant-user")
+                .phone("0551212121")
+                .password("x")
+                .role("CITIZEN")
+                .street(street)
+                .build());
+
+        // A landscape sensor image that the phone recorded as held upright (EXIF orientation 6)
+        reportId = reportService.createReport(citizen.getId(), "Fallen tree",
+                new MockMultipartFile("image", "tree.jpg", "image/jpeg", phonePhoto(2000, 1000, 6))).getId();
+        hash = reportRepository.findById(reportId).orElseThrow().getImagePath();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(imageStore, "stagingDirectory", previousStaging);
+        ReflectionTestUtils.setField(storage, "root", previousRoot);
+        imageRepository.deleteAllInBatch();
+        rollupRepository.deleteAllInBatch();
+        reportRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        streetRepository.deleteAllInBatch();
+        districtRepository.deleteAllInBatch();
+        cityRepository.deleteAllInBatch();
+        reportRollupService.rebuild(LocalDate.now(), LocalDate.now());
+    }
+
+    @Test
+    void generate_writesUprightDownscaledJpegsWithoutMetadata() throws IOException {
+        imageVariants.generate(hash);
+
+        BufferedImage preview = ImageIO.read(variantFile(hash, ImageVariant.PREVIEW).toFile());
+        BufferedImage thumbnail = ImageIO.read(variantFile(hash, ImageVariant.THUMBNAIL).toFile());
+        assertEquals(640, preview.getWidth());
+        assertEquals(1280, preview.getHeight());
+        assertEquals(160, thumbnail.getWidth());
+        assertEquals(320, thumbnail.getHeight());
+        // The red left half of the sensor image ends up on top
+        assertTrue(new Color(thumbnail.getRGB(80, 20)).getRed() > 200);
+        assertTrue(new Color(thumbnail.getRGB(80, 300)).getBlue() > 200);
+
+        String previewBytes = new String(
+                Files.readAllBytes(variantFile(hash, ImageVariant.PREVIEW)), StandardCharsets.ISO_8859_1);
+        assertFalse(previewBytes.contains("Exif"));
+        assertTrue(Files.size(variantFile(hash, ImageVariant.THUMBNAIL))
+                < Files.size(variantFile(hash, ImageVariant.ORIGINAL)));
+    }
+
+    @Test
+    void decode_subsamplesToTheSmallestSizeAtOrAboveThePreview() throws IOException {
+        Path photo = imageDir.resolve("wide.jpg");
+        Files.write(photo, phonePhoto(2600, 1300, 1));
+
+        BufferedImage decoded = imageVariants.decode(photo, ImageVariant.PREVIEW.getMaxSide());
+
+        // Every second pixel: 1300 stays above 1280, every third (867) would not
+        assertEquals(1300, decoded.getWidth());
+        assertEquals(650, decoded.getHeight());
+    }
+
+    @Test
+    void variantsAreServedOnceRendered_andCollectedWithTheOriginal() throws Exception {
+        imageVariants.generate(hash);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        reportImageService.serve(reportImageService.locate(reportId, null, null, true),
+                ImageVariant.THUMBNAIL, hash, new MockHttpServletRequest("GET", "/"), response);
+
+        assertEquals("image/jpeg", response.getContentType());
+        assertEquals("\"" + hash + ".thumbnail\"", response.getHeader("ETag"));
+        assertEquals(Files.size(variantFile(hash, ImageVariant.THUMBNAIL)), response.getContentLength());
+        assertEquals("private, max-age=31536000, immutable", response.getHeader("Cache-Control"));
+
+        reportService.deleteReport(reportId);
+        // Collected on the collector thread once the delete commits
+        for (int i = 0; i < 500 && imageRepository.existsById(hash); i++) {
+            Thread.sleep(10);
+        }
+        for (ImageVariant variant : ImageVariant.values()) {
+            assertFalse(Files.exists(variantFile(hash, variant)), variant.name());
+        }
+    }
+
+    @Test
+    void missingVariant_fallsBackToTheOriginalWithoutPinning() throws Exception {
+        imageVariants.generate(hash);
+        // The upload's own background render must not put the file back
+        awaitIdle();
+        Files.delete(variantFile(hash, ImageVariant.PREVIEW));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        reportImageService.serve(reportImageService.locate(reportId, null, null, true),
+                ImageVariant.PREVIEW, hash, new MockHttpServletRequest("GET", "/"), response);
+
+        assertEquals("\"" + hash + "\"", response.getHeader("ETag"));
+        assertEquals(Files.size(variantFile(hash, ImageVariant.ORIGINAL)), response.getContentLength());
+        assertEquals("private, no-cache", response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    void undecodableImage_isNotRetried() throws IOException {
+        String text = reportRepository.findById(reportService.createReport(citizen.getId(), "Not a photo",
+                new MockMultipartFile("image", "notes.jpg", "image/jpeg", "plain text".getBytes(StandardCharsets.UTF_8)))
+                .getId()).orElseThrow().getImagePath();
+
+        imageVariants.generate(text);
+
+        assertFalse(Files.exists(variantFile(text, ImageVariant.THUMBNAIL)));
+        assertFalse(imageVariants.submit(text));
+    }
+
+    private Path variantFile(String hash, ImageVariant variant) {
+        return imageDir.resolve(ReportImageStore.variantKey(hash, variant));
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(imageVariants, "executor");
+        for (int i = 0; i < 500 && (executor.getActiveCount() > 0 || !executor.getQueue().isEmpty()); i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    // A JPEG whose left half is red and right half blue, with an EXIF orientation segment after SOI
+    private static byte[] phonePhoto(int width, int height, int orientation) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        var graphics = image.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(width / 2, 0, width - width / 2, height);
+        graphics.dispose();
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", encoded);
+        byte[] plain = encoded.toByteArray();
+
+        ByteBuffer app1 = ByteBuffer.allocate(4 + 6 + 8 + 2 + 12 + 4);
+        app1.putShort((short) 0xFFE1).putShort((short) (app1.capacity() - 2));
+        app1.put("Exif\0\0".getBytes(StandardCharsets.US_ASCII));
+        app1.put("MM".getBytes(StandardCharsets.US_ASCII)).putShort((short) 42).putInt(8);
+        app1.putShort((short) 1);
+        app1.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        app1.putInt(0);
+
+        ByteArrayOutputStream photo = new ByteArrayOutputStream();
+        photo.write(plain, 0, 2);
+        photo.write(app1.array());
+        photo.write(plain, 2, plain.length - 2);
+        return photo.toByteArray();
+    }
+}
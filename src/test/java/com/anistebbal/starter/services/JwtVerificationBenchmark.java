@@ -0,0 +1,100 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.config.UserPrincipal;
+import com.anistebbal.starter.entities.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-request cost of JWT verification in {@code JwtFilter}.
+ *
+ * legacyTripleParse replays the previous path (extractPhone + validateToken:
+ * three parses, each deriving the key and building a parser), singleParse is
+ * the new path with the verified-token cache disabled, and cachedVerify is a
+ * repeat request from the same client.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.anistebbal.starter.services.JwtVerificationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "LxEThLgZKRdYhylBWzWGMqM+P3Of50d9EvNpU9Yy1Fs=";
+
+    private JWTService uncachedService;
+    private JWTService cachedService;
+    private String token;
+    private UserDetails userDetails;
+
+    @Setup
+    public void setup() {
+        uncachedService = newService(0);
+        cachedService = newService(10_000);
+
+        User user = User.builder()
+                .id(1L)
+                .username("bench")
+                .phone("0555123456")
+                .role("CITIZEN")
+                .build();
+        token = cachedService.generateToken(user);
+        userDetails = new UserPrincipal(user);
+    }
+
+    @Benchmark
+    public boolean legacyTripleParse() {
+        String phone = legacyClaims(token).getSubject();
+        return phone.equals(legacyClaims(token).getSubject())
+                && !legacyClaims(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean singleParse() {
+        Claims claims = uncachedService.verify(token);
+        return uncachedService.validateToken(claims, userDetails);
+    }
+
+    @Benchmark
+    public boolean cachedVerify() {
+        Claims claims = cachedService.verify(token);
+        return cachedService.validateToken(claims, userDetails);
+    }
+
+    private static Claims legacyClaims(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    private static JWTService newService(int cacheEntries) {
+        JWTService service = new JWTService();
+        ReflectionTestUtils.setField(service, "secretKey", SECRET);
+        ReflectionTestUtils.setField(service, "verifiedCacheMaxEntries", cacheEntries);
+        service.init();
+        return service;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
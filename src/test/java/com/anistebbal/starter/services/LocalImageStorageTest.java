@@ -0,0 +1,69 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.util.UrlSigner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalImageStorageTest {
+
+    @TempDir
+    Path root;
+
+    @TempDir
+    Path staging;
+
+    private LocalImageStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalImageStorage(root, new UrlSigner(new byte[32]));
+    }
+
+    @Test
+    void put_movesTheFileUnderItsKey_andOpenReadsARange() throws IOException {
+        Path staged = Files.writeString(staging.resolve("upload.part"), "burst pipe photo");
+
+        storage.put("ab/cd/photo", staged, "image/jpeg");
+
+        assertFalse(Files.exists(staged));
+        assertEquals(16, storage.size("ab/cd/photo").orElseThrow());
+        assertEquals(root.resolve("ab/cd/photo"), storage.localFile("ab/cd/photo").orElseThrow());
+        try (InputStream in = storage.open("ab/cd/photo", 6, 4)) {
+            assertEquals("pipe", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void missingKey_hasNoSize_andCannotBeOpened() throws IOException {
+        assertTrue(storage.size("ab/cd/missing").isEmpty());
+        assertThrows(NoSuchFileException.class, () -> storage.open("ab/cd/missing", 0, 1));
+        storage.delete(List.of("ab/cd/missing"));
+    }
+
+    @Test
+    void keysOutsideTheRoot_areRejected() {
+        assertThrows(IllegalArgumentException.class, () -> storage.size("../secrets.txt"));
+        assertThrows(IllegalArgumentException.class, () -> storage.localFile(""));
+        assertEquals(root.resolve("legacy_photo.jpg"), storage.localFile("legacy_photo.jpg").orElseThrow());
+    }
+
+    @Test
+    void presign_pointsAtTheSignedEndpoint() {
+        String url = storage.presign("ab/cd/photo", Duration.ofMinutes(5)).toString();
+
+        assertTrue(url.startsWith(LocalImageStorage.SIGNED_PATH + "?key=ab%2Fcd%2Fphoto&expires="), url);
+        assertTrue(url.contains("&signature="), url);
+    }
+}
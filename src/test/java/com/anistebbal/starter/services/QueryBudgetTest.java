@@ -0,0 +1,250 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.AdminReportFilterDTO;
+import com.anistebbal.starter.dto.CitizenReportFilterDTO;
+import com.anistebbal.starter.dto.CreateReportDTO;
+import com.anistebbal.starter.dto.ExportFormat;
+import com.anistebbal.starter.entities.City;
+import com.anistebbal.starter.entities.District;
+import com.anistebbal.starter.entities.Report;
+import com.anistebbal.starter.entities.ReportStatus;
+import com.anistebbal.starter.entities.Street;
+import com.anistebbal.starter.entities.User;
+import com.anistebbal.starter.repositories.CityRepository;
+import com.anistebbal.starter.repositories.DistrictRepository;
+import com.anistebbal.starter.repositories.IngestJobRepository;
+import com.anistebbal.starter.repositories.ReportDailyRollupRepository;
+import com.anistebbal.starter.repositories.ReportRepository;
+import com.anistebbal.starter.repositories.StreetRepository;
+import com.anistebbal.starter.repositories.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Regression guard for N+1 queries: each service call must stay within a
+ * fixed number of JDBC statements no matter how many rows it touches.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+class QueryBudgetTest {
+
+    private static final int STREETS = 4;
+    private static final int REPORTS_PER_STREET = 5;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private DistrictRepository districtRepository;
+
+    @Autowired
+    private StreetRepository streetRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ReportExportService reportExportService;
+
+    @Autowired
+    private ReportIngestService reportIngestService;
+
+    @Autowired
+    private IngestJobRepository ingestJobRepository;
+
+    @Autowired
+    private ReportDailyRollupRepository rollupRepository;
+
+    @Autowired
+    private ReportRollupService reportRollupService;
+
+    @Autowired
+    private DistrictService districtService;
+
+    @Autowired
+    private StreetService streetService;
+
+    private Statistics statistics;
+    private City city;
+    private District district;
+    private User citizen;
+    private Report citizenReport;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        city = cityRepository.save(City.builder().name("Budget City").build());
+        district = districtRepository.save(District.builder().name("Budget District").city(city).build());
+
+        List<Street> streets = new ArrayList<>();
+        for (int i = 0; i < STREETS; i++) {
+            streets.add(streetRepository.save(Street.builder().name("Budget Street " + i).district(district).build()));
+        }
+
+        List<Report> reports = new ArrayList<>();
+        for (int i = 0; i < STREETS; i++) {
+            User user = userRepository.save(User.builder()
+                    .username("budget-user-" + i)
+                    .phone("0550000" + i)
+                    .password("x")
+                    .role("CITIZEN")
+                    .street(streets.get(i))
+                    .build());
+            if (i == 0) {
+                citizen = user;
+            }
+            for (int j = 0; j < REPORTS_PER_STREET; j++) {
+                reports.add(Report.builder()
+                        .description("Report " + i + "-" + j)
+                        .status(ReportStatus.PENDING)
+                        .street(streets.get(i))
+                        .user(user)
+                        .build());
+            }
+        }
+        citizenReport = reportRepository.saveAll(reports).get(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ingestJobRepository.deleteAllInBatch();
+        rollupRepository.deleteAllInBatch();
+        reportRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        streetRepository.deleteAllInBatch();
+        districtRepository.deleteAllInBatch();
+        cityRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void districtsByCity_singleQuery() {
+        assertWithinBudget(1, () -> assertEquals(STREETS,
+                districtService.getDistrictDTOsByCity(city.getId()).get(0).getStreets().size()));
+    }
+
+    @Test
+    void allStreets_singleQuery() {
+        assertWithinBudget(1, () -> assertEquals(STREETS, streetService.getAllStreetDTOs().size()));
+    }
+
+    @Test
+    void adminListing_singleQuery() {
+        AdminReportFilterDTO filter = new AdminReportFilterDTO();
+        filter.setDistrictId(district.getId());
+        filter.setSize(STREETS * REPORTS_PER_STREET);
+
+        assertWithinBudget(1, () -> assertEquals(STREETS * REPORTS_PER_STREET,
+                reportService.getReportsForAdmin(filter).getItems().size()));
+    }
+
+    @Test
+    void citizenListing_streetLookupPlusPage() {
+        assertWithinBudget(2, () -> assertEquals(REPORTS_PER_STREET,
+                reportService.getReportsForCitizen(citizen.getId(), new CitizenReportFilterDTO()).getItems().size()));
+    }
+
+    @Test
+    void cityWideExport_singleQuery() {
+        assertWithinBudget(1, () -> {
+            try {
+                assertEquals(STREETS * REPORTS_PER_STREET, reportExportService.exportAdminReports(
+                        new AdminReportFilterDTO(), ExportFormat.CSV, new ByteArrayOutputStream()));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    void ingest_batchesInserts() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 120; i++) {
+            body.append("{\"description\":\"Imported ").append(i)
+                    .append("\",\"streetId\":").append(citizen.getStreet().getId())
+                    .append(",\"userId\":").append(citizen.getId()).append("}\n");
+        }
+
+        // job lookup/insert/lock, 2 reference checks, 3 sequence blocks, 3 insert batches, job update;
+        // row-by-row inserts would need 120+
+        assertWithinBudget(15, () -> {
+            try {
+                assertEquals(120, reportIngestService.ingest("budget-job", ExportFormat.NDJSON,
+                        new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8))).getInserted());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    void createReport_loadsUserWithStreetOnce() {
+        // select user+street, insert report, then seed and bump the day's rollup row
+        assertWithinBudget(5, () -> {
+            try {
+                reportService.createReport(citizen.getId(), "New pothole", null);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    void updateReportContent_noLazyLoads() {
+        CreateReportDTO dto = new CreateReportDTO();
+        dto.setText("Updated");
+
+        // authorized load with its street, then the update
+        assertWithinBudget(2, () -> {
+            try {
+                reportService.updateReportContent(
+                        citizen.getId(), citizen.getStreet().getId(), citizenReport.getId(), dto, null);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    void updateStatus_noEntityLoad() {
+        // status snapshot, conditional update, decrement the PENDING rollup row, then
+        // bump the RESOLVED one, which does not exist yet and is seeded (miss, insert, bump)
+        reportRollupService.rebuild(citizenReport.getCreatedAt(), citizenReport.getCreatedAt());
+        assertWithinBudget(6, () -> assertEquals(1, reportService.updateStatus(
+                citizenReport.getId(), ReportStatus.RESOLVED, null).getVersion()));
+    }
+
+    private void assertWithinBudget(long budget, Runnable call) {
+        statistics.clear();
+        call.run();
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= budget,
+                "Expected at most " + budget + " statements but " + statements + " were prepared");
+    }
+}
@@ -0,0 +1,180 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.AnalyticsQueryDTO;
+import com.anistebbal.starter.dto.ReportAnalyticsGroupDTO;
+import com.anistebbal.starter.entities.City;
+import com.anistebbal.starter.entities.District;
+import com.anistebbal.starter.entities.ReportDailyRollup;
+import com.anistebbal.starter.entities.ReportStatus;
+import com.anistebbal.starter.entities.Street;
+import com.anistebbal.starter.repositories.CityRepository;
+import com.anistebbal.starter.repositories.DistrictRepository;
+import com.anistebbal.starter.repositories.ReportDailyRollupRepository;
+import com.anistebbal.starter.repositories.StreetRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@SpringBootTest
+class ReportAnalyticsServiceTest {
+
+    @Autowired
+    private ReportAnalyticsService reportAnalyticsService;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private DistrictRepository districtRepository;
+
+    @Autowired
+    private StreetRepository streetRepository;
+
+    @Autowired
+    private ReportDailyRollupRepository rollupRepository;
+
+    @Autowired
+    private ReportRollupService reportRollupService;
+
+    private District north;
+    private District south;
+    private Street northMain;
+    private Street northSide;
+    private Street southMain;
+
+    // Monday 2024-01-01 .. Wednesday 2024-01-31
+    private final LocalDate jan1 = LocalDate.of(2024, 1, 1);
+
+    @BeforeEach
+    void setUp() {
+        City city = cityRepository.save(City.builder().name("Analytics City").build());
+        north = districtRepository.save(District.builder().name("North").city(city).build());
+        south = districtRepository.save(District.builder().name("South").city(city).build());
+        northMain = streetRepository.save(Street.builder().name("North Main").district(north).build());
+        northSide = streetRepository.save(Street.builder().name("North Side").district(north).build());
+        southMain = streetRepository.save(Street.builder().name("South Main").district(south).build());
+
+        rollup(jan1, northMain, ReportStatus.PENDING, 3);
+        rollup(jan1, northMain, ReportStatus.RESOLVED, 1);
+        rollup(jan1.plusDays(2), northSide, ReportStatus.RESOLVED, 2);
+        rollup(jan1.plusDays(8), northMain, ReportStatus.PENDING, 4);
+        rollup(jan1.plusDays(8), southMain, ReportStatus.RESOLVED, 5);
+        rollup(jan1.plusMonths(1), southMain, ReportStatus.IN_PROGRESS, 6);
+    }
+
+    @AfterEach
+    void tearDown() {
+        rollupRepository.deleteAllInBatch();
+        streetRepository.deleteAllInBatch();
+        districtRepository.deleteAllInBatch();
+        cityRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void noGroupBy_returnsSingleTotalsRow() {
+        List<ReportAnalyticsGroupDTO> rows = reportAnalyticsService.getGroupedAnalytics(query(null, null));
+
+        assertEquals(1, rows.size());
+        assertEquals(15, rows.get(0).getTotalReports());
+        assertEquals(8, rows.get(0).getResolvedReports());
+        assertEquals(7, rows.get(0).getPendingReports());
+    }
+
+    @Test
+    void groupByDistrict_countsAndResolutionRatePerDistrict() {
+        List<ReportAnalyticsGroupDTO> rows = reportAnalyticsService.getGroupedAnalytics(
+                query(List.of("district"), null));
+
+        assertEquals(2, rows.size());
+        ReportAnalyticsGroupDTO northRow = rows.get(0);
+        assertEquals(north.getId(), northRow.getDistrictId());
+        assertEquals("North", northRow.getDistrictName());
+        assertEquals(10, northRow.getTotalReports());
+        assertEquals(30.0, northRow.getResolutionRate(), 0.001);
+        assertNull(northRow.getStreetId());
+        assertEquals(5, rows.get(1).getTotalReports());
+    }
+
+    @Test
+    void groupByStreetAndWeek_foldsDaysIntoMondayBuckets() {
+        AnalyticsQueryDTO query = query(List.of("street"), "week");
+        query.setDistrictId(north.getId());
+
+        List<ReportAnalyticsGroupDTO> rows = reportAnalyticsService.getGroupedAnalytics(query);
+
+        // North Main: week of Jan 1 (4) and week of Jan 8 (4); North Side: week of Jan 1 (2)
+        assertEquals(3, rows.size());
+        assertEquals(northMain.getId(), rows.get(0).getStreetId());
+        assertEquals(jan1, rows.get(0).getBucketStart());
+        assertEquals(4, rows.get(0).getTotalReports());
+        assertEquals(jan1.plusDays(7), rows.get(1).getBucketStart());
+        assertEquals(northSide.getId(), rows.get(2).getStreetId());
+        assertEquals(jan1, rows.get(2).getBucketStart());
+    }
+
+    @Test
+    void groupByStatusAndMonth() {
+        AnalyticsQueryDTO query = query(List.of("status"), "month");
+        query.setEndDate(jan1.plusMonths(2));
+
+        List<ReportAnalyticsGroupDTO> rows = reportAnalyticsService.getGroupedAnalytics(query);
+
+        ReportAnalyticsGroupDTO inProgress = rows.stream()
+                .filter(row -> row.getStatus() == ReportStatus.IN_PROGRESS)
+                .findFirst().orElseThrow();
+        assertEquals(jan1.plusMonths(1), inProgress.getBucketStart());
+        assertEquals(6, inProgress.getTotalReports());
+    }
+
+    @Test
+    void equivalentRequests_shareCacheEntry() {
+        List<ReportAnalyticsGroupDTO> first = reportAnalyticsService.getGroupedAnalytics(
+                query(List.of("status", "district"), "DAY"));
+        List<ReportAnalyticsGroupDTO> second = reportAnalyticsService.getGroupedAnalytics(
+                query(List.of("DISTRICT", " status"), "day"));
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void rebuild_dropsCachedResultsForItsRange() {
+        assertEquals(15, totalReports(reportAnalyticsService.getGroupedAnalytics(query(List.of("status"), null))));
+
+        // No reports exist, so rebuilding January empties its rollup
+        reportRollupService.rebuild(jan1, jan1.plusDays(30));
+
+        assertEquals(0, totalReports(reportAnalyticsService.getGroupedAnalytics(query(List.of("status"), null))));
+    }
+
+    @Test
+    void unknownDimension_throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> reportAnalyticsService.getGroupedAnalytics(query(List.of("user"), null)));
+    }
+
+    private AnalyticsQueryDTO query(List<String> groupBy, String bucket) {
+        return AnalyticsQueryDTO.builder()
+                .startDate(jan1)
+                .endDate(jan1.plusDays(30))
+                .groupBy(groupBy)
+                .bucket(bucket)
+                .build();
+    }
+
+    private static long totalReports(List<ReportAnalyticsGroupDTO> groups) {
+        return groups.stream().mapToLong(ReportAnalyticsGroupDTO::getTotalReports).sum();
+    }
+
+    private void rollup(LocalDate day, Street street, ReportStatus status, long count) {
+        rollupRepository.save(new ReportDailyRollup(day, street.getId(), status, count, 0));
+    }
+}
@@ -0,0 +1,127 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.AdminReportFilterDTO;
+import com.anistebbal.starter.dto.ExportFormat;
+import com.anistebbal.starter.dto.ReportResponseDTO;
+import com.anistebbal.starter.entities.ReportStatus;
+import com.anistebbal.starter.repositories.ReportRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReportExportServiceTest {
+
+    @Mock
+    private ReportRepository reportRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @InjectMocks
+    private ReportExportService reportExportService;
+
+    private final LocalDate day = LocalDate.of(2024, 5, 1);
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void exportCsv_writesHeaderAndEscapesFields() throws IOException {
+        when(reportRepository.streamAdminReports(eq(1L), any(), any(), any(), any())).thenReturn(Stream.of(
+                row(2L, "Pothole, big one", "Main \"A\""),
+                row(1L, "=HYPERLINK(\"x\")", "Side")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = reportExportService.exportAdminReports(filter(1L), ExportFormat.CSV, out);
+
+        assertEquals(2, rows);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("id,text,status,createdAt,streetName,districtName", lines[0]);
+        assertEquals("2,\"Pothole, big one\",PENDING,2024-05-01,\"Main \"\"A\"\"\",Centre", lines[1]);
+        assertEquals("1,\"'=HYPERLINK(\"\"x\"\")\",PENDING,2024-05-01,Side,Centre", lines[2]);
+    }
+
+    @Test
+    void exportNdjson_writesOneObjectPerLine() throws IOException {
+        when(reportRepository.streamAdminReports(any(), any(), any(), any(), any()))
+                .thenReturn(Stream.of(row(2L, "a", "Main"), row(1L, "b", "Main")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportExportService.exportAdminReports(filter(null), ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(2L, objectMapper.readTree(lines[0]).get("id").asLong());
+        assertEquals("2024-05-01", objectMapper.readTree(lines[1]).get("createdAt").asText());
+    }
+
+    @Test
+    void export_closesCursorAndClearsSessionPerBatch() throws IOException {
+        ReflectionTestUtils.setField(reportExportService, "batchSize", 2);
+        AtomicBoolean closed = new AtomicBoolean();
+        when(reportRepository.streamAdminReports(any(), any(), any(), any(), any())).thenReturn(
+                Stream.of(row(5L, "a", "s"), row(4L, "b", "s"), row(3L, "c", "s"), row(2L, "d", "s"),
+                        row(1L, "e", "s")).onClose(() -> closed.set(true)));
+
+        long rows = reportExportService.exportAdminReports(filter(null), ExportFormat.CSV, new ByteArrayOutputStream());
+
+        assertEquals(5, rows);
+        assertTrue(closed.get());
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void export_startAfterEnd_throwsBeforeQuerying() {
+        AdminReportFilterDTO filter = filter(1L);
+        filter.setStartDate(day.plusDays(1));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> reportExportService.exportAdminReports(filter, ExportFormat.CSV, new ByteArrayOutputStream()));
+        verifyNoInteractions(reportRepository);
+    }
+
+    @Test
+    void exportFormat_unknown_throws() {
+        assertEquals(ExportFormat.NDJSON, ExportFormat.from("NDJSON"));
+        assertThrows(IllegalArgumentException.class, () -> ExportFormat.from("xlsx"));
+    }
+
+    private AdminReportFilterDTO filter(Long districtId) {
+        AdminReportFilterDTO filter = new AdminReportFilterDTO();
+        filter.setDistrictId(districtId);
+        filter.setStartDate(day.minusDays(30));
+        filter.setEndDate(day);
+        return filter;
+    }
+
+    private ReportResponseDTO row(Long id, String text, String street) {
+        return new ReportResponseDTO(id, text, ReportStatus.PENDING, day, street, "Centre", 0, null);
+    }
+}
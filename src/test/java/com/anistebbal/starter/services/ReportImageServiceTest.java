@@ -0,0 +1,282 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.ImageUrlDTO;
+import com.anistebbal.starter.dto.ImageVariant;
+import com.anistebbal.starter.dto.ReportImageRef;
+import com.anistebbal.starter.entities.City;
+import com.anistebbal.starter.entities.District;
+import com.anistebbal.starter.entities.ReportImage;
+import com.anistebbal.starter.entities.Street;
+import com.anistebbal.starter.entities.User;
+import com.anistebbal.starter.repositories.CityRepository;
+import com.anistebbal.starter.repositories.DistrictRepository;
+import com.anistebbal.starter.repositories.ReportDailyRollupRepository;
+import com.anistebbal.starter.repositories.ReportImageRepository;
+import com.anistebbal.starter.repositories.ReportRepository;
+import com.anistebbal.starter.repositories.StreetRepository;
+import com.anistebbal.starter.repositories.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@SpringBootTest
+class ReportImageServiceTest {
+
+    private static final String PHOTO = "burst pipe photo";
+
+    @TempDir
+    Path imageDir;
+
+    @Autowired
+    private ReportImageService reportImageService;
+
+    @Autowired
+    private ReportImageStore imageStore;
+
+    @Autowired
+    private ReportImageStorage storage;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ReportRollupService reportRollupService;
+
+    @Autowired
+    private ReportImageRepository imageRepository;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private DistrictRepository districtRepository;
+
+    @Autowired
+    private StreetRepository streetRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private ReportDailyRollupRepository rollupRepository;
+
+    private Object previousStaging;
+    private Object previousRoot;
+    private User citizen;
+    private Street otherStreet;
+    private Long reportId;
+    private String hash;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        previousStaging = ReflectionTestUtils.getField(imageStore, "stagingDirectory");
+        previousRoot = ReflectionTestUtils.getField(storage, "root");
+        ReflectionTestUtils.setField(imageStore, "stagingDirectory", imageDir.resolve(".tmp").toString());
+        ReflectionTestUtils.setField(storage, "root", imageDir);
+
+        City city = cityRepository.save(City.builder().name("Serve City").build());
+        District district = districtRepository.save(District.builder().name("Serve District").city(city).build());
+        Street street = streetRepository.save(Street.builder().name("Serve Street").district(district).build());
+        otherStreet = streetRepository.save(Street.builder().name("Other Street").district(district).build());
+        citizen = userRepository.save(User.builder()
+                .username("serve-user")
+                .phone("0557777777")
+                .password("x")
+                .role("CITIZEN")
+                .street(street)
+                .build());
+
+        reportId = reportService.createReport(citizen.getId(), "Burst pipe",
+                new MockMultipartFile("image", "pipe.jpg", "image/jpeg", PHOTO.getBytes(StandardCharsets.UTF_8)))
+                .getId();
+        hash = reportRepository.findById(reportId).orElseThrow().getImagePath();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(imageStore, "stagingDirectory", previousStaging);
+        ReflectionTestUtils.setField(storage, "root", previousRoot);
+        ReflectionTestUtils.setField(reportImageService, "sendfileMinBytes", 48L * 1024);
+        imageRepository.deleteAllInBatch();
+        rollupRepository.deleteAllInBatch();
+        reportRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        streetRepository.deleteAllInBatch();
+        districtRepository.deleteAllInBatch();
+        cityRepository.deleteAllInBatch();
+        reportRollupService.rebuild(LocalDate.now(), LocalDate.now());
+    }
+
+    @Test
+    void fullImage_withStrongEtagAndRevalidatingCache() throws IOException {
+        MockHttpServletResponse response = serve(new MockHttpServletRequest("GET", "/"), null);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(PHOTO, response.getContentAsString());
+        assertEquals("image/jpeg", response.getContentType());
+        assertEquals(PHOTO.length(), response.getContentLength());
+        assertEquals("\"" + hash + "\"", response.getHeader("ETag"));
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+        assertEquals("private, no-cache", response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    void pinnedVersion_isCachedForGood() throws IOException {
+        MockHttpServletResponse response = serve(new MockHttpServletRequest("GET", "/"), hash);
+
+        assertEquals("private, max-age=31536000, immutable", response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    void matchingIfNoneMatch_isNotModified() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("If-None-Match", "\"other\", W/\"" + hash + "\"");
+
+        MockHttpServletResponse response = serve(request, null);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void ranges_areServedAsPartialContent() throws IOException {
+        assertPartial("bytes=6-9", "bytes 6-9/16", "pipe");
+        assertPartial("bytes=11-", "bytes 11-15/16", "photo");
+        assertPartial("bytes=-5", "bytes 11-15/16", "photo");
+        assertPartial("bytes=11-500", "bytes 11-15/16", "photo");
+    }
+
+    @Test
+    void rangeBeyondTheEnd_isNotSatisfiable() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Range", "bytes=16-");
+
+        MockHttpServletResponse response = serve(request, null);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */16", response.getHeader("Content-Range"));
+    }
+
+    @Test
+    void staleIfRangeOrMultipleRanges_sendTheWholeImage() throws IOException {
+        MockHttpServletRequest stale = new MockHttpServletRequest("GET", "/");
+        stale.addHeader("Range", "bytes=0-4");
+        stale.addHeader("If-Range", "\"an-older-image\"");
+        MockHttpServletRequest multiple = new MockHttpServletRequest("GET", "/");
+        multiple.addHeader("Range", "bytes=0-4,6-9");
+
+        assertEquals(PHOTO, serve(stale, null).getContentAsString());
+        assertEquals(PHOTO, serve(multiple, null).getContentAsString());
+    }
+
+    @Test
+    void sendfileCapableConnector_getsTheFileInsteadOfABody() throws IOException {
+        ReflectionTestUtils.setField(reportImageService, "sendfileMinBytes", 0L);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader("Range", "bytes=6-9");
+
+        MockHttpServletResponse response = serve(request, null);
+
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(4, response.getContentLength());
+        assertEquals(imageDir.resolve(ReportImageStore.keyOf(hash)).toString(),
+                request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(6L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(10L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    @Test
+    void nonRasterType_isServedAsASandboxedDownload() throws IOException {
+        // As recorded before uploads were limited to raster formats
+        ReportImage stored = imageRepository.findById(hash).orElseThrow();
+        stored.setContentType("image/svg+xml");
+        imageRepository.save(stored);
+
+        MockHttpServletResponse response = serve(new MockHttpServletRequest("GET", "/"), null);
+
+        assertEquals("application/octet-stream", response.getContentType());
+        assertEquals("attachment", response.getHeader("Content-Disposition"));
+        assertEquals("sandbox", response.getHeader("Content-Security-Policy"));
+    }
+
+    @Test
+    void locate_followsTheReportAuthorizationRules() {
+        User neighbour = userRepository.save(User.builder()
+                .username("neighbour").phone("0558888888").password("x").role("CITIZEN")
+                .street(citizen.getStreet()).build());
+        User stranger = userRepository.save(User.builder()
+                .username("stranger").phone("0559999999").password("x").role("CITIZEN")
+                .street(otherStreet).build());
+
+        assertEquals(hash, reportImageService.locate(reportId, neighbour.getId(),
+                citizen.getStreet().getId(), false).imagePath());
+        assertEquals(hash, reportImageService.locate(reportId, null, null, true).imagePath());
+        assertThrows(EntityNotFoundException.class,
+                () -> reportImageService.locate(reportId, stranger.getId(), otherStreet.getId(), false));
+    }
+
+    @Test
+    void imageUrl_isSignedAndServedWithoutAToken() throws IOException {
+        ReportImageRef image = reportImageService.locate(reportId, citizen.getId(), citizen.getStreet().getId(), false);
+        ImageUrlDTO url = reportImageService.imageUrl(image, ImageVariant.ORIGINAL);
+        assertTrue(url.getUrl().startsWith(LocalImageStorage.SIGNED_PATH + "?"));
+        assertTrue(url.getExpiresAt().isAfter(Instant.now()));
+
+        MultiValueMap<String, String> query = UriComponentsBuilder.fromUriString(url.getUrl()).build().getQueryParams();
+        String key = URLDecoder.decode(query.getFirst("key"), StandardCharsets.UTF_8);
+        long expires = Long.parseLong(query.getFirst("expires"));
+        String signature = query.getFirst("signature");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        reportImageService.serveSigned(key, expires, signature, new MockHttpServletRequest("GET", "/"), response);
+
+        assertEquals(PHOTO, response.getContentAsString());
+        assertEquals("image/jpeg", response.getContentType());
+        assertEquals("\"" + hash + "\"", response.getHeader("ETag"));
+        assertThrows(EntityNotFoundException.class, () -> reportImageService.serveSigned(
+                key, expires + 60, signature, new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse()));
+    }
+
+    private void assertPartial(String range, String contentRange, String body) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Range", range);
+
+        MockHttpServletResponse response = serve(request, null);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(contentRange, response.getHeader("Content-Range"));
+        assertEquals(body, response.getContentAsString());
+        assertEquals(body.length(), response.getContentLength());
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request, String version) throws IOException {
+        ReportImageRef image = reportImageService.locate(reportId, citizen.getId(), citizen.getStreet().getId(), false);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        reportImageService.serve(image, ImageVariant.ORIGINAL, version, request, response);
+        return response;
+    }
+}
@@ -0,0 +1,232 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.entities.City;
+import com.anistebbal.starter.entities.District;
+import com.anistebbal.starter.entities.ReportImage;
+import com.anistebbal.starter.entities.Street;
+import com.anistebbal.starter.entities.User;
+import com.anistebbal.starter.repositories.CityRepository;
+import com.anistebbal.starter.repositories.DistrictRepository;
+import com.anistebbal.starter.repositories.ReportDailyRollupRepository;
+import com.anistebbal.starter.repositories.ReportImageRepository;
+import com.anistebbal.starter.repositories.ReportRepository;
+import com.anistebbal.starter.repositories.StreetRepository;
+import com.anistebbal.starter.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+@ActiveProfiles("test")
+@SpringBootTest
+class ReportImageStoreTest {
+
+    // sha256("burst pipe photo")
+    private static final String PHOTO_HASH = "ee3fe01ef0dd82ec0052f30247d8f1c12946a398965b3af756afc10cb852abd0";
+
+    @TempDir
+    Path imageDir;
+
+    @Autowired
+    private ReportImageStore imageStore;
+
+    @Autowired
+    private ReportImageStorage storage;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ReportRollupService reportRollupService;
+
+    @Autowired
+    private ReportImageRepository imageRepository;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private DistrictRepository districtRepository;
+
+    @Autowired
+    private StreetRepository streetRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private ReportDailyRollupRepository rollupRepository;
+
+    private Object previousStaging;
+    private Object previousRoot;
+    private User citizen;
+
+    @BeforeEach
+    void setUp() {
+        previousStaging = ReflectionTestUtils.getField(imageStore, "stagingDirectory");
+        previousRoot = ReflectionTestUtils.getField(storage, "root");
+        ReflectionTestUtils.setField(imageStore, "stagingDirectory", imageDir.resolve(".tmp").toString());
+        ReflectionTestUtils.setField(storage, "root", imageDir);
+
+        City city = cityRepository.save(City.builder().name("Image City").build());
+        District district = districtRepository.save(District.builder().name("Image District").city(city).build());
+        Street street = streetRepository.save(Street.builder().name("Image Street").district(district).build());
+        citizen = userRepository.save(User.builder()
+                .username("image-user")
+                .phone("0556666666")
+                .password("x")
+                .role("CITIZEN")
+                .street(street)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(imageStore, "stagingDirectory", previousStaging);
+        ReflectionTestUtils.setField(storage, "root", previousRoot);
+        imageRepository.deleteAllInBatch();
+        rollupRepository.deleteAllInBatch();
+        reportRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        streetRepository.deleteAllInBatch();
+        districtRepository.deleteAllInBatch();
+        cityRepository.deleteAllInBatch();
+        reportRollupService.rebuild(LocalDate.now(), LocalDate.now());
+    }
+
+    @Test
+    void sameBytes_storedOnceInShardedPath_andCollectedWithTheLastReference() throws Exception {
+        Long first = reportService.createReport(citizen.getId(), "Flooded road", photo("a.jpg")).getId();
+        Long second = reportService.createReport(citizen.getId(), "Road flooded", photo("b.jpg")).getId();
+
+        String hash = reportRepository.findById(first).orElseThrow().getImagePath();
+        assertEquals(hash, reportRepository.findById(second).orElseThrow().getImagePath());
+        Path file = imageDir.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+        assertEquals(hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash, ReportImageStore.keyOf(hash));
+        assertEquals("burst pipe photo", Files.readString(file));
+        assertEquals(2, imageRepository.findById(hash).orElseThrow().getRefCount());
+        try (var leftovers = Files.list(imageDir.resolve(".tmp"))) {
+            assertEquals(0, leftovers.count());
+        }
+
+        reportService.deleteReportByUser(citizen.getId(), citizen.getStreet().getId(), first);
+        assertTrue(Files.exists(file));
+
+        reportService.deleteReport(second);
+        awaitCollected(hash);
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void contentHash_isSha256Hex() throws IOException {
+        Long id = reportService.createReport(citizen.getId(), "Photo", photo("c.jpg")).getId();
+
+        assertEquals(PHOTO_HASH, reportRepository.findById(id).orElseThrow().getImagePath());
+    }
+
+    @Test
+    void nonRasterUpload_isRejected() {
+        MockMultipartFile svg = new MockMultipartFile("image", "pipe.svg", "image/svg+xml",
+                "<svg onload=\"alert(1)\"/>".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> reportService.createReport(citizen.getId(), "Vector", svg));
+        assertEquals(0, imageRepository.count());
+    }
+
+    @Test
+    void objectCollectedBeforeTheLock_isPutAgain() throws IOException {
+        // A backend that copies, like S3, while a collection removes the first put right away
+        ReportImageStorage racing = spy(storage);
+        AtomicInteger puts = new AtomicInteger();
+        doAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            Path copy = Files.copy(invocation.<Path>getArgument(1), imageDir.resolve("copy-" + puts.get()));
+            storage.put(key, copy, invocation.getArgument(2));
+            if (puts.incrementAndGet() == 1) {
+                storage.delete(List.of(key));
+            }
+            return null;
+        }).when(racing).put(any(), any(), any());
+        ReflectionTestUtils.setField(imageStore, "storage", racing);
+        try {
+            reportService.createReport(citizen.getId(), "Flooded road", photo("a.jpg"));
+        } finally {
+            ReflectionTestUtils.setField(imageStore, "storage", storage);
+        }
+
+        assertEquals(2, puts.get());
+        assertEquals("burst pipe photo", Files.readString(imageDir.resolve(ReportImageStore.keyOf(PHOTO_HASH))));
+    }
+
+    @Test
+    void sweep_collectsImagesLeftUnreferenced() throws Exception {
+        // As left behind by a crash between the last release and its collection
+        Path file = imageDir.resolve(ReportImageStore.keyOf(PHOTO_HASH));
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "burst pipe photo");
+        imageRepository.save(ReportImage.builder()
+                .hash(PHOTO_HASH)
+                .refCount(0)
+                .sizeBytes(16)
+                .contentType("image/jpeg")
+                .createdAt(Instant.now().minus(Duration.ofHours(1)))
+                .build());
+
+        imageStore.sweep();
+        awaitCollected(PHOTO_HASH);
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void legacyImage_deletedWithItsReport() throws Exception {
+        Long id = reportService.createReport(citizen.getId(), "Old photo", null).getId();
+        Files.writeString(imageDir.resolve("legacy_photo.jpg"), "legacy");
+        reportRepository.findById(id).ifPresent(report -> {
+            report.setImagePath("legacy_photo.jpg");
+            reportRepository.save(report);
+        });
+
+        reportService.deleteReport(id);
+        for (int i = 0; i < 500 && Files.exists(imageDir.resolve("legacy_photo.jpg")); i++) {
+            Thread.sleep(10);
+        }
+        assertFalse(Files.exists(imageDir.resolve("legacy_photo.jpg")));
+    }
+
+    // Collection runs on the collector thread after commit
+    private void awaitCollected(String hash) throws InterruptedException {
+        for (int i = 0; i < 500 && imageRepository.existsById(hash); i++) {
+            Thread.sleep(10);
+        }
+        assertFalse(imageRepository.existsById(hash));
+    }
+
+    private static MockMultipartFile photo(String name) {
+        return new MockMultipartFile("image", name, "image/jpeg",
+                "burst pipe photo".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,171 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.ExportFormat;
+import com.anistebbal.starter.dto.IngestResultDTO;
+import com.anistebbal.starter.entities.City;
+import com.anistebbal.starter.entities.District;
+import com.anistebbal.starter.entities.ReportStatus;
+import com.anistebbal.starter.entities.Street;
+import com.anistebbal.starter.entities.User;
+import com.anistebbal.starter.repositories.CityRepository;
+import com.anistebbal.starter.repositories.DistrictRepository;
+import com.anistebbal.starter.repositories.IngestJobRepository;
+import com.anistebbal.starter.repositories.ReportDailyRollupRepository;
+import com.anistebbal.starter.repositories.ReportRepository;
+import com.anistebbal.starter.repositories.StreetRepository;
+import com.anistebbal.starter.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@SpringBootTest
+class ReportIngestServiceTest {
+
+    @Autowired
+    private ReportIngestService reportIngestService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ReportRollupService reportRollupService;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private DistrictRepository districtRepository;
+
+    @Autowired
+    private StreetRepository streetRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private ReportDailyRollupRepository rollupRepository;
+
+    @Autowired
+    private IngestJobRepository ingestJobRepository;
+
+    private Street street;
+    private User user;
+    private final LocalDate legacyDay = LocalDate.of(2023, 3, 14);
+
+    @BeforeEach
+    void setUp() {
+        City city = cityRepository.save(City.builder().name("Ingest City").build());
+        District district = districtRepository.save(District.builder().name("Ingest District").city(city).build());
+        street = streetRepository.save(Street.builder().name("Ingest Street").district(district).build());
+        user = userRepository.save(User.builder()
+                .username("ingest-user")
+                .phone("0552222222")
+                .password("x")
+                .role("CITIZEN")
+                .street(street)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(reportIngestService, "chunkSize", 500);
+        ingestJobRepository.deleteAllInBatch();
+        rollupRepository.deleteAllInBatch();
+        reportRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        streetRepository.deleteAllInBatch();
+        districtRepository.deleteAllInBatch();
+        cityRepository.deleteAllInBatch();
+        reportRollupService.rebuild(legacyDay, legacyDay);
+    }
+
+    @Test
+    void ndjson_insertsValidRowsAndReportsRejections() throws IOException {
+        String body = String.join("\n",
+                row("Broken lamp", "RESOLVED"),
+                row("Pothole", null),
+                "{\"description\":\"No street\",\"userId\":" + user.getId() + "}",
+                "{\"description\":\"Ghost street\",\"streetId\":-5,\"userId\":" + user.getId() + "}",
+                "not json",
+                "",
+                row("Bad status", "DONE"));
+
+        IngestResultDTO result = reportIngestService.ingest("job-ndjson", ExportFormat.NDJSON, stream(body));
+
+        assertEquals(2, result.getInserted());
+        assertEquals(4, result.getRejected());
+        assertEquals(6, result.getRecordsCommitted());
+        assertEquals(3, result.getErrors().get(0).getRecord());
+        assertEquals("streetId is required", result.getErrors().get(0).getMessage());
+        assertEquals("unknown street -5", result.getErrors().get(1).getMessage());
+        assertEquals(5, result.getErrors().get(2).getRecord());
+        assertTrue(result.getRowsPerSecond() > 0);
+
+        // Imported reports keep their date and are counted in that day's rollup
+        assertEquals(2, reportService.getReportAnalytics(legacyDay, legacyDay).getTotalReports());
+        assertEquals(1, reportService.getReportAnalytics(legacyDay, legacyDay).getResolvedReports());
+    }
+
+    @Test
+    void resend_skipsRecordsCommittedByAnEarlierRun() throws IOException {
+        ReflectionTestUtils.setField(reportIngestService, "chunkSize", 2);
+        StringBuilder full = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            full.append(row("Report " + i, null)).append('\n');
+        }
+        // The first run only got the first three records through
+        String partial = full.substring(0, full.indexOf(row("Report 3", null)));
+
+        IngestResultDTO first = reportIngestService.ingest("job-resume", ExportFormat.NDJSON, stream(partial));
+        IngestResultDTO second = reportIngestService.ingest("job-resume", ExportFormat.NDJSON, stream(full.toString()));
+        IngestResultDTO third = reportIngestService.ingest("job-resume", ExportFormat.NDJSON, stream(full.toString()));
+
+        assertEquals(3, first.getInserted());
+        assertEquals(3, second.getSkipped());
+        assertEquals(2, second.getInserted());
+        assertEquals(0, third.getInserted());
+        assertEquals(5, reportRepository.count());
+        assertEquals(5, ingestJobRepository.findById("job-resume").orElseThrow().getInserted());
+    }
+
+    @Test
+    void csv_mapsColumnsByHeader() throws IOException {
+        String body = "userId,streetId,description,status,createdAt\n"
+                + user.getId() + "," + street.getId() + ",\"Leak, near school\",in_progress," + legacyDay + "\n"
+                + user.getId() + "," + street.getId() + ",Too,many,columns,here\n";
+
+        IngestResultDTO result = reportIngestService.ingest("job-csv", ExportFormat.CSV, stream(body));
+
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getRejected());
+        assertEquals(ReportStatus.IN_PROGRESS, reportRepository.findAll().get(0).getStatus());
+        assertEquals("Leak, near school", reportRepository.findAll().get(0).getDescription());
+    }
+
+    private String row(String description, String status) {
+        return "{\"description\":\"" + description + "\",\"streetId\":" + street.getId()
+                + ",\"userId\":" + user.getId()
+                + (status != null ? ",\"status\":\"" + status + "\"" : "")
+                + ",\"createdAt\":\"" + legacyDay + "\"}";
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,230 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.BulkStatusUpdateDTO;
+import com.anistebbal.starter.dto.BulkStatusUpdateResultDTO;
+import com.anistebbal.starter.dto.BulkStatusUpdateResultDTO.Outcome;
+import com.anistebbal.starter.dto.ReportAnalyticsDTO;
+import com.anistebbal.starter.dto.ReportStatusDTO;
+import com.anistebbal.starter.entities.City;
+import com.anistebbal.starter.entities.District;
+import com.anistebbal.starter.entities.Report;
+import com.anistebbal.starter.entities.ReportStatus;
+import com.anistebbal.starter.entities.Street;
+import com.anistebbal.starter.entities.User;
+import com.anistebbal.starter.repositories.CityRepository;
+import com.anistebbal.starter.repositories.DistrictRepository;
+import com.anistebbal.starter.repositories.ReportDailyRollupRepository;
+import com.anistebbal.starter.repositories.ReportRepository;
+import com.anistebbal.starter.repositories.StreetRepository;
+import com.anistebbal.starter.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ActiveProfiles("test")
+@SpringBootTest
+class ReportRollupServiceTest {
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ReportRollupService reportRollupService;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private DistrictRepository districtRepository;
+
+    @Autowired
+    private StreetRepository streetRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private ReportDailyRollupRepository rollupRepository;
+
+    private User citizen;
+    private Street street;
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        City city = cityRepository.save(City.builder().name("Rollup City").build());
+        District district = districtRepository.save(District.builder().name("Rollup District").city(city).build());
+        street = streetRepository.save(Street.builder().name("Rollup Street").district(district).build());
+        citizen = userRepository.save(User.builder()
+                .username("rollup-user")
+                .phone("0551111111")
+                .password("x")
+                .role("CITIZEN")
+                .street(street)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        rollupRepository.deleteAllInBatch();
+        reportRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        streetRepository.deleteAllInBatch();
+        districtRepository.deleteAllInBatch();
+        cityRepository.deleteAllInBatch();
+        // Bulk deletes bypass ReportService; a rebuild also drops cached analytics for today
+        reportRollupService.rebuild(today, today);
+    }
+
+    @Test
+    void writes_keepRollupInStepWithReports() throws IOException {
+        Long first = reportService.createReport(citizen.getId(), "One", null).getId();
+        Long second = reportService.createReport(citizen.getId(), "Two", null).getId();
+        reportService.createReport(citizen.getId(), "Three", null);
+
+        reportService.updateStatus(first, ReportStatus.RESOLVED, null);
+        reportService.updateStatus(first, ReportStatus.RESOLVED, null); // no-op change
+        reportService.deleteReportByUser(citizen.getId(), street.getId(), second);
+
+        ReportAnalyticsDTO analytics = reportService.getReportAnalytics(today.minusDays(1), today);
+        assertEquals(2, analytics.getTotalReports());
+        assertEquals(1, analytics.getResolvedReports());
+        assertEquals(1, analytics.getPendingReports());
+        assertEquals(50.0, analytics.getResolutionRate());
+    }
+
+    @Test
+    void cachedAnalytics_areInvalidatedByCommittedChanges() throws IOException {
+        assertEquals(0, reportService.getReportAnalytics(today, today).getTotalReports());
+
+        Long id = reportService.createReport(citizen.getId(), "Cached", null).getId();
+        assertEquals(1, reportService.getReportAnalytics(today, today).getPendingReports());
+
+        reportService.updateStatus(id, ReportStatus.RESOLVED, null);
+        assertEquals(1, reportService.getReportAnalytics(today, today).getResolvedReports());
+
+        // A range that does not cover today keeps its entry
+        assertEquals(0, reportService.getReportAnalytics(today.minusDays(10), today.minusDays(5)).getTotalReports());
+    }
+
+    @Test
+    void updateStatus_isConditionalOnTheVersionTheClientRead() throws IOException {
+        Long id = reportService.createReport(citizen.getId(), "Versioned", null).getId();
+
+        ReportStatusDTO first = reportService.updateStatus(id, ReportStatus.IN_PROGRESS, 0L);
+        assertEquals(1, first.getVersion());
+
+        // A second admin still holding version 0 must not overwrite the first change
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> reportService.updateStatus(id, ReportStatus.REJECTED, 0L));
+        assertEquals(ReportStatus.IN_PROGRESS, reportRepository.findById(id).orElseThrow().getStatus());
+
+        ReportStatusDTO resolved = reportService.updateStatus(id, ReportStatus.RESOLVED, first.getVersion());
+        assertEquals(2, resolved.getVersion());
+        assertEquals(1, reportService.getReportAnalytics(today, today).getResolvedReports());
+    }
+
+    @Test
+    void updateStatus_rejectsTransitionsOutOfClosedStates() throws IOException {
+        Long id = reportService.createReport(citizen.getId(), "Closed", null).getId();
+        reportService.updateStatus(id, ReportStatus.REJECTED, null);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> reportService.updateStatus(id, ReportStatus.RESOLVED, null));
+        assertEquals(ReportStatus.PENDING, reportService.updateStatus(id, ReportStatus.PENDING, null).getStatus());
+    }
+
+    @Test
+    void bulkUpdateStatus_reportsPerItemOutcomesAndKeepsRollupInStep() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(reportService.createReport(citizen.getId(), "Bulk " + i, null).getId());
+        }
+
+        BulkStatusUpdateResultDTO result = reportService.bulkUpdateStatus(new BulkStatusUpdateDTO(List.of(
+                new BulkStatusUpdateDTO.Item(ids.get(0), ReportStatus.RESOLVED),
+                new BulkStatusUpdateDTO.Item(ids.get(1), ReportStatus.RESOLVED),
+                new BulkStatusUpdateDTO.Item(ids.get(2), ReportStatus.IN_PROGRESS),
+                new BulkStatusUpdateDTO.Item(ids.get(3), ReportStatus.PENDING),
+                new BulkStatusUpdateDTO.Item(-1L, ReportStatus.RESOLVED),
+                new BulkStatusUpdateDTO.Item(ids.get(0), ReportStatus.REJECTED))));
+
+        assertEquals(3, result.getUpdated());
+        assertEquals(List.of(Outcome.UPDATED, Outcome.UPDATED, Outcome.UPDATED, Outcome.UNCHANGED,
+                Outcome.NOT_FOUND, Outcome.DUPLICATE),
+                result.getResults().stream().map(BulkStatusUpdateResultDTO.ItemResult::getOutcome).toList());
+        assertEquals(ReportStatus.RESOLVED, reportRepository.findById(ids.get(0)).orElseThrow().getStatus());
+        assertEquals(ReportStatus.IN_PROGRESS, reportRepository.findById(ids.get(2)).orElseThrow().getStatus());
+
+        ReportAnalyticsDTO analytics = reportService.getReportAnalytics(today, today);
+        assertEquals(4, analytics.getTotalReports());
+        assertEquals(2, analytics.getResolvedReports());
+        assertEquals(1, analytics.getPendingReports());
+    }
+
+    @Test
+    void bulkUpdateStatus_readsTheRowsItUpdatesForUpdate() throws IOException {
+        Long id = reportService.createReport(citizen.getId(), "Bulk lock", null).getId();
+
+        List<String> statements;
+        RecordingStatementInspector.start();
+        try {
+            reportService.bulkUpdateStatus(new BulkStatusUpdateDTO(List.of(
+                    new BulkStatusUpdateDTO.Item(id, ReportStatus.RESOLVED))));
+        } finally {
+            statements = RecordingStatementInspector.stop();
+        }
+
+        // The status read is a projection; Hibernate must still lock the rows behind it
+        List<String> reads = statements.stream()
+                .map(sql -> sql.toLowerCase(Locale.ROOT))
+                .filter(sql -> sql.startsWith("select") && sql.contains(" from report "))
+                .toList();
+        assertEquals(1, reads.size(), reads.toString());
+        assertTrue(reads.get(0).endsWith(" for update"), reads.get(0));
+    }
+
+    @Test
+    void rebuild_backfillsReportsWrittenBehindTheRollup() {
+        for (int i = 0; i < 3; i++) {
+            reportRepository.save(Report.builder()
+                    .description("Legacy " + i)
+                    .status(i == 0 ? ReportStatus.RESOLVED : ReportStatus.PENDING)
+                    .street(street)
+                    .user(citizen)
+                    .build());
+        }
+        assertEquals(0, reportService.getReportAnalytics(today, today).getTotalReports());
+
+        reportRollupService.rebuild(today, today);
+
+        ReportAnalyticsDTO analytics = reportService.getReportAnalytics(today, today);
+        assertEquals(3, analytics.getTotalReports());
+        assertEquals(1, analytics.getResolvedReports());
+        assertEquals(2, analytics.getPendingReports());
+    }
+
+    @Test
+    void analytics_emptyRange_isZero() {
+        ReportAnalyticsDTO analytics = reportService.getReportAnalytics(today.minusYears(1), today);
+        assertEquals(0, analytics.getTotalReports());
+        assertEquals(0.0, analytics.getResolutionRate());
+    }
+}
@@ -0,0 +1,151 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.CreateReportDTO;
+import com.anistebbal.starter.dto.ReportResponseDTO;
+import com.anistebbal.starter.dto.ReportSearchQueryDTO;
+import com.anistebbal.starter.dto.ReportSearchResultDTO;
+import com.anistebbal.starter.entities.City;
+import com.anistebbal.starter.entities.District;
+import com.anistebbal.starter.entities.ReportStatus;
+import com.anistebbal.starter.entities.Street;
+import com.anistebbal.starter.entities.User;
+import com.anistebbal.starter.repositories.CityRepository;
+import com.anistebbal.starter.repositories.DistrictRepository;
+import com.anistebbal.starter.repositories.ReportDailyRollupRepository;
+import com.anistebbal.starter.repositories.ReportRepository;
+import com.anistebbal.starter.repositories.StreetRepository;
+import com.anistebbal.starter.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@SpringBootTest
+class ReportSearchServiceTest {
+
+    @Autowired
+    private ReportSearchService reportSearchService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ReportRollupService reportRollupService;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private DistrictRepository districtRepository;
+
+    @Autowired
+    private StreetRepository streetRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private ReportDailyRollupRepository rollupRepository;
+
+    private District north;
+    private District south;
+    private User northCitizen;
+    private User southCitizen;
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        City city = cityRepository.save(City.builder().name("Search City").build());
+        north = districtRepository.save(District.builder().name("North").city(city).build());
+        south = districtRepository.save(District.builder().name("South").city(city).build());
+        northCitizen = citizen("search-north", "0553333333", north);
+        southCitizen = citizen("search-south", "0554444444", south);
+    }
+
+    @AfterEach
+    void tearDown() {
+        rollupRepository.deleteAllInBatch();
+        reportRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        streetRepository.deleteAllInBatch();
+        districtRepository.deleteAllInBatch();
+        cityRepository.deleteAllInBatch();
+        reportRollupService.rebuild(today, today);
+        // Bulk deletes bypass the change events
+        reportSearchService.rebuild();
+    }
+
+    @Test
+    void search_matchesAllWordsAndFollowsWrites() throws IOException {
+        Long leak = reportService.createReport(northCitizen.getId(), "Water leak near the school", null).getId();
+        Long older = reportService.createReport(southCitizen.getId(), "Big WATER leak", null).getId();
+        reportService.createReport(northCitizen.getId(), "Broken streetlight", null);
+
+        ReportSearchResultDTO result = reportSearchService.search(query("leak water"));
+        assertEquals(2, result.getTotal());
+        assertEquals(List.of(older, leak), result.getReports().stream().map(ReportResponseDTO::getId).toList());
+        assertEquals("North", result.getReports().get(1).getDistrictName());
+
+        CreateReportDTO edit = new CreateReportDTO();
+        edit.setText("Pothole");
+        reportService.updateReportContent(northCitizen.getId(), northCitizen.getStreet().getId(), leak, edit, null);
+        reportService.deleteReportByUser(southCitizen.getId(), southCitizen.getStreet().getId(), older);
+
+        assertEquals(0, reportSearchService.search(query("leak")).getTotal());
+        assertEquals(List.of(leak), reportSearchService.search(query("pothole")).getReports().stream()
+                .map(ReportResponseDTO::getId).toList());
+    }
+
+    @Test
+    void search_filtersByDistrictStatusAndDate() throws IOException {
+        Long northLeak = reportService.createReport(northCitizen.getId(), "Leak", null).getId();
+        reportService.createReport(southCitizen.getId(), "Leak", null);
+        reportService.updateStatus(northLeak, ReportStatus.RESOLVED, null);
+
+        ReportSearchQueryDTO byDistrict = query("leak");
+        byDistrict.setDistrictId(north.getId());
+        assertEquals(1, reportSearchService.search(byDistrict).getTotal());
+
+        ReportSearchQueryDTO byStatus = query("leak");
+        byStatus.setStatus(ReportStatus.PENDING);
+        assertEquals(1, reportSearchService.search(byStatus).getTotal());
+        byStatus.setDistrictId(north.getId());
+        assertEquals(0, reportSearchService.search(byStatus).getTotal());
+
+        ReportSearchQueryDTO past = query("leak");
+        past.setEndDate(today.minusDays(1));
+        assertEquals(0, reportSearchService.search(past).getTotal());
+    }
+
+    @Test
+    void search_withoutWords_throws() {
+        assertThrows(IllegalArgumentException.class, () -> reportSearchService.search(query("the ?!")));
+    }
+
+    private ReportSearchQueryDTO query(String q) {
+        return ReportSearchQueryDTO.builder().q(q).build();
+    }
+
+    private User citizen(String username, String phone, District district) {
+        Street street = streetRepository.save(Street.builder().name(username + " street").district(district).build());
+        return userRepository.save(User.builder()
+                .username(username)
+                .phone(phone)
+                .password("x")
+                .role("CITIZEN")
+                .street(street)
+                .build());
+    }
+}
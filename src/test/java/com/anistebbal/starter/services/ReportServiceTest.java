@@ -1,6 +1,9 @@
 package com.anistebbal.starter.services;
 
+import com.anistebbal.starter.dto.AdminReportFilterDTO;
 import com.anistebbal.starter.dto.CreateReportDTO;
+import com.anistebbal.starter.dto.CursorPageDTO;
+import com.anistebbal.starter.dto.ReportResponseDTO;
 import com.anistebbal.starter.dto.ReportResponseCreationDTO;
 import com.anistebbal.starter.entities.Report;
 import com.anistebbal.starter.entities.ReportStatus;
@@ -9,21 +12,26 @@ import com.anistebbal.starter.entities.User;
 import com.anistebbal.starter.repositories.ReportRepository;
 import com.anistebbal.starter.repositories.StreetRepository;
 import com.anistebbal.starter.repositories.UserRepository;
+import com.anistebbal.starter.util.ReportCursor;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.mock.web.MockMultipartFile;
 
 import java.io.IOException;
 import java.time.LocalDate;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class ReportServiceTest {
@@ -37,6 +45,24 @@ class ReportServiceTest {
     @Mock
     private StreetRepository streetRepository;
 
+    @Mock
+    private ReportRollupService reportRollupService;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    @Mock
+    private DuplicateReportDetector duplicateDetector;
+
+    @Mock
+    private ReportImageStore imageStore;
+
+    @Mock
+    private ImageVariantPipeline imageVariants;
+
+    @Mock
+    private UploadSessionService uploadSessions;
+
     @InjectMocks
     private ReportService reportService;
 
@@ -64,13 +90,15 @@ class ReportServiceTest {
         Report savedReport = Report.builder()
                 .id(123L)
                 .description(description)
+                .imagePath("ab".repeat(32))
                 .status(ReportStatus.PENDING)
                 .createdAt(LocalDate.now())
                 .street(street)
                 .build();
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(userRepository.findWithStreetById(userId)).thenReturn(Optional.of(user));
         when(reportRepository.save(any(Report.class))).thenReturn(savedReport);
+        when(imageStore.store(imageFile)).thenReturn("ab".repeat(32));
 
         // Act
         ReportResponseCreationDTO response = reportService.createReport(userId, description, imageFile);
@@ -80,6 +108,9 @@ class ReportServiceTest {
         assertEquals(description, response.getDescription());
         assertEquals("PENDING", response.getStatus());
         assertEquals("Main Street", response.getStreetName());
+        assertEquals("ab".repeat(32), response.getImagePath());
+        verify(reportRollupService).recordCreated(savedReport);
+        verify(reportRepository).save(argThat(report -> "ab".repeat(32).equals(report.getImagePath())));
     }
 
     @Test
@@ -90,7 +121,7 @@ class ReportServiceTest {
         MockMultipartFile imageFile = new MockMultipartFile("image", "photo.jpg", "image/jpeg",
                 "image-data".getBytes());
 
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.findWithStreetById(userId)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(EntityNotFoundException.class, () -> reportService.createReport(userId, description, imageFile));
@@ -99,17 +130,19 @@ class ReportServiceTest {
     @Test
     void deleteReport_success() {
         Long reportId = 1L;
-        when(reportRepository.existsById(reportId)).thenReturn(true);
+        Report report = Report.builder().id(reportId).status(ReportStatus.PENDING).build();
+        when(reportRepository.findById(reportId)).thenReturn(Optional.of(report));
 
         reportService.deleteReport(reportId);
 
-        verify(reportRepository, times(1)).deleteById(reportId);
+        verify(reportRollupService).recordDeleted(report);
+        verify(reportRepository, times(1)).delete(report);
     }
 
     @Test
     void deleteReport_throwsIfNotExists() {
         Long reportId = 1L;
-        when(reportRepository.existsById(reportId)).thenReturn(false);
+        when(reportRepository.findById(reportId)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> reportService.deleteReport(reportId));
     }
@@ -137,13 +170,14 @@ class ReportServiceTest {
         CreateReportDTO dto = new CreateReportDTO();
         dto.setText("Updated description");
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(reportRepository.findById(reportId)).thenReturn(Optional.of(report));
+        when(reportRepository.findAuthorizedForCitizen(reportId, userId, 1L)).thenReturn(Optional.of(report));
         when(reportRepository.save(any(Report.class))).thenReturn(report);
 
-        ReportResponseCreationDTO result = reportService.updateReportContent(userId, reportId, dto, null);
+        ReportResponseCreationDTO result = reportService.updateReportContent(userId, 1L, reportId, dto, null);
 
         assertEquals("Updated description", result.getDescription());
+        assertNull(report.getImagePath());
+        verify(imageStore).release(oldImagePath);
     }
 
     @Test
@@ -163,11 +197,53 @@ class ReportServiceTest {
         report.setStreet(street);
         report.setImagePath("sample-image.jpg");
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(reportRepository.findById(reportId)).thenReturn(Optional.of(report));
+        when(reportRepository.findAuthorizedForCitizen(reportId, userId, 1L)).thenReturn(Optional.of(report));
 
-        reportService.deleteReportByUser(userId, reportId);
+        reportService.deleteReportByUser(userId, 1L, reportId);
 
+        verify(imageStore).release("sample-image.jpg");
         verify(reportRepository).delete(report);
     }
+
+    @Test
+    void deleteReportByUser_unauthorized_looksLikeMissingReport() {
+        when(reportRepository.findAuthorizedForCitizen(2L, 1L, 9L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> reportService.deleteReportByUser(1L, 9L, 2L));
+        verify(reportRepository, never()).delete(any(Report.class));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void getReportsForAdmin_returnsCursorWhenMoreRowsExist() {
+        LocalDate day = LocalDate.of(2024, 5, 1);
+        List<ReportResponseDTO> rows = List.of(
+                new ReportResponseDTO(30L, "a", ReportStatus.PENDING, day, "Main Street", "Centre", 0, null),
+                new ReportResponseDTO(20L, "b", ReportStatus.PENDING, day, "Main Street", "Centre", 0, null),
+                new ReportResponseDTO(10L, "c", ReportStatus.PENDING, day, "Main Street", "Centre", 0, null));
+
+        AdminReportFilterDTO filter = new AdminReportFilterDTO();
+        filter.setDistrictId(3L);
+        filter.setStartDate(day);
+        filter.setEndDate(day);
+        filter.setSize(2);
+
+        when(reportRepository.findAdminReportsPage(eq(3L), any(), any(), eq(day), eq(day),
+                eq(day.plusDays(1)), eq(Long.MAX_VALUE), eq(PageRequest.of(0, 3)))).thenReturn(rows);
+
+        CursorPageDTO<ReportResponseDTO> page = reportService.getReportsForAdmin(filter);
+
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.isHasMore());
+        assertEquals(new ReportCursor(day, 20L), ReportCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void getReportsForAdmin_rejectsMalformedCursor() {
+        AdminReportFilterDTO filter = new AdminReportFilterDTO();
+        filter.setDistrictId(3L);
+        filter.setCursor("not-a-cursor");
+
+        assertThrows(IllegalArgumentException.class, () -> reportService.getReportsForAdmin(filter));
+    }
 }
@@ -0,0 +1,158 @@
+package com.anistebbal.starter.services;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the backend against a minimal in-process stand-in for the S3 API (path-style)
+class S3ImageStorageTest {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+    private static final Pattern DELETE_KEY = Pattern.compile("<Key>([^<]*)</Key>");
+
+    @TempDir
+    Path staging;
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private S3ImageStorage storage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/images", this::handle);
+        server.start();
+        storage = S3ImageStorage.create("http://127.0.0.1:" + server.getAddress().getPort(), "us-east-1", true,
+                StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test-secret")), "images");
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.close();
+        server.stop(0);
+    }
+
+    @Test
+    void put_streamsTheFile_andOpenReadsARange() throws IOException {
+        Path staged = Files.writeString(staging.resolve("upload.part"), "burst pipe photo");
+
+        storage.put("ab/cd/photo", staged, "image/jpeg");
+
+        assertEquals("burst pipe photo", new String(objects.get("ab/cd/photo"), StandardCharsets.UTF_8));
+        assertEquals(16, storage.size("ab/cd/photo").orElseThrow());
+        assertTrue(storage.localFile("ab/cd/photo").isEmpty());
+        try (InputStream in = storage.open("ab/cd/photo", 6, 4)) {
+            assertEquals("pipe", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void missingKey_hasNoSize() throws IOException {
+        assertTrue(storage.size("ab/cd/missing").isEmpty());
+    }
+
+    @Test
+    void delete_removesAllKeysInOneRequest() throws IOException {
+        objects.put("ab/cd/photo", new byte[] {1});
+        objects.put("ab/cd/photo.preview.jpg", new byte[] {2});
+
+        storage.delete(List.of("ab/cd/photo", "ab/cd/photo.preview.jpg", "ab/cd/photo.thumbnail.jpg"));
+
+        assertTrue(objects.isEmpty());
+    }
+
+    @Test
+    void presign_returnsASignedBucketUrl() {
+        String url = storage.presign("ab/cd/photo", Duration.ofMinutes(5)).toString();
+
+        assertTrue(url.contains("/images/ab/cd/photo?"), url);
+        assertTrue(url.contains("X-Amz-Expires=300"), url);
+        assertTrue(url.contains("X-Amz-Signature="), url);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String key = path.length() > "/images/".length() ? path.substring("/images/".length()) : "";
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> {
+                    objects.put(key, body);
+                    exchange.getResponseHeaders().set("ETag", "\"" + md5(body) + "\"");
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "HEAD" -> {
+                    byte[] object = objects.get(key);
+                    if (object == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                        return;
+                    }
+                    exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.length));
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "GET" -> {
+                    byte[] object = objects.get(key);
+                    if (object == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                        return;
+                    }
+                    Matcher range = RANGE.matcher(String.valueOf(exchange.getRequestHeaders().getFirst("Range")));
+                    if (range.matches()) {
+                        int start = Integer.parseInt(range.group(1));
+                        int end = Math.min(Integer.parseInt(range.group(2)), object.length - 1);
+                        exchange.getResponseHeaders().set("Content-Range",
+                                "bytes " + start + "-" + end + "/" + object.length);
+                        exchange.sendResponseHeaders(206, end - start + 1);
+                        exchange.getResponseBody().write(object, start, end - start + 1);
+                    } else {
+                        exchange.sendResponseHeaders(200, object.length);
+                        exchange.getResponseBody().write(object);
+                    }
+                }
+                case "POST" -> {
+                    // DeleteObjects: POST /bucket?delete with the keys in an XML body
+                    Matcher keys = DELETE_KEY.matcher(new String(body, StandardCharsets.UTF_8));
+                    while (keys.find()) {
+                        objects.remove(keys.group(1));
+                    }
+                    byte[] result = "<DeleteResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\"></DeleteResult>"
+                            .getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", "application/xml");
+                    exchange.sendResponseHeaders(200, result.length);
+                    exchange.getResponseBody().write(result);
+                }
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    private static String md5(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(bytes));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.config.JwtFilter;
+import com.anistebbal.starter.entities.City;
+import com.anistebbal.starter.entities.District;
+import com.anistebbal.starter.entities.RevokedToken;
+import com.anistebbal.starter.entities.Street;
+import com.anistebbal.starter.entities.User;
+import com.anistebbal.starter.repositories.CityRepository;
+import com.anistebbal.starter.repositories.DistrictRepository;
+import com.anistebbal.starter.repositories.RevokedTokenRepository;
+import com.anistebbal.starter.repositories.StreetRepository;
+import com.anistebbal.starter.repositories.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@SpringBootTest
+class TokenRevocationServiceTest {
+
+    @Autowired
+    private TokenRevocationService tokenRevocations;
+
+    @Autowired
+    private JWTService jwtService;
+
+    @Autowired
+    private JwtFilter jwtFilter;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private DistrictRepository districtRepository;
+
+    @Autowired
+    private StreetRepository streetRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User citizen;
+
+    @BeforeEach
+    void setUp() {
+        City city = cityRepository.save(City.builder().name("Revocation City").build());
+        District district = districtRepository.save(District.builder().name("Revocation District").city(city).build());
+        Street street = streetRepository.save(Street.builder().name("Revocation Street").district(district).build());
+        citizen = userRepository.save(User.builder()
+                .username("revocation-user")
+                .phone("0556565656")
+                .password("x")
+                .role("CITIZEN")
+                .street(street)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        revokedTokenRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        streetRepository.deleteAllInBatch();
+        districtRepository.deleteAllInBatch();
+        cityRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void revoke_marksOnlyThatToken() {
+        Claims claims = claims(Instant.now().plusSeconds(3600));
+
+        tokenRevocations.revoke(claims);
+
+        assertTrue(tokenRevocations.isRevoked(claims.getId()));
+        assertFalse(tokenRevocations.isRevoked(UUID.randomUUID().toString()));
+        assertFalse(tokenRevocations.isRevoked(null));
+        assertTrue(revokedTokenRepository.existsById(claims.getId()));
+    }
+
+    @Test
+    void tokenWithoutId_cannotBeRevoked() {
+        Claims claims = Jwts.claims().add("id", citizen.getId()).build();
+
+        assertThrows(IllegalArgumentException.class, () -> tokenRevocations.revoke(claims));
+    }
+
+    @Test
+    void revocationFromAnotherNode_isSeenOnceSynced() {
+        String jti = UUID.randomUUID().toString();
+        revokedTokenRepository.save(RevokedToken.builder()
+                .jti(jti)
+                .userId(citizen.getId())
+                .expiresAt(Instant.now().plusSeconds(3600))
+                .revokedAt(Instant.now())
+                .build());
+
+        // The row exists, but this node's filter has not heard of it
+        assertFalse(tokenRevocations.isRevoked(jti));
+
+        tokenRevocations.syncRecent();
+
+        assertTrue(tokenRevocations.isRevoked(jti));
+    }
+
+    @Test
+    void expiredRevocation_isPrunedAndNoLongerChecked() {
+        Claims claims = claims(Instant.now().minusSeconds(1));
+        tokenRevocations.revoke(claims);
+        assertTrue(tokenRevocations.isRevoked(claims.getId()));
+
+        tokenRevocations.pruneExpired();
+
+        assertFalse(revokedTokenRepository.existsById(claims.getId()));
+        assertFalse(tokenRevocations.isRevoked(claims.getId()));
+    }
+
+    @Test
+    void filter_stopsAuthenticatingARevokedToken() throws ServletException, IOException {
+        String token = jwtService.generateToken(citizen);
+        Authentication before = authenticate(token);
+        assertNotNull(before);
+        assertEquals(citizen.getPhone(), before.getName());
+
+        tokenRevocations.revoke(jwtService.verify(token));
+
+        assertNull(authenticate(token));
+    }
+
+    private Claims claims(Instant expiresAt) {
+        return Jwts.claims()
+                .id(UUID.randomUUID().toString())
+                .expiration(Date.from(expiresAt))
+                .add("id", citizen.getId())
+                .build();
+    }
+
+    private Authentication authenticate(String token) throws ServletException, IOException {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/reports");
+        request.addHeader("Authorization", "Bearer " + token);
+        jwtFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
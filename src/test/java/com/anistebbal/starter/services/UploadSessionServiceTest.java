@@ -0,0 +1,311 @@
+package com.anistebbal.starter.services;
+
+import com.anistebbal.starter.dto.CreateReportDTO;
+import com.anistebbal.starter.dto.CreateUploadSessionDTO;
+import com.anistebbal.starter.dto.UploadSessionDTO;
+import com.anistebbal.starter.entities.City;
+import com.anistebbal.starter.entities.District;
+import com.anistebbal.starter.entities.Street;
+import com.anistebbal.starter.entities.User;
+import com.anistebbal.starter.repositories.CityRepository;
+import com.anistebbal.starter.repositories.DistrictRepository;
+import com.anistebbal.starter.repositories.ReportDailyRollupRepository;
+import com.anistebbal.starter.repositories.ReportImageRepository;
+import com.anistebbal.starter.repositories.ReportRepository;
+import com.anistebbal.starter.repositories.StreetRepository;
+import com.anistebbal.starter.repositories.UploadSessionRepository;
+import com.anistebbal.starter.repositories.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@SpringBootTest
+class UploadSessionServiceTest {
+
+    // Four chunks of 4 bytes
+    private static final String PHOTO = "burst pipe photo";
+
+    // sha256("burst pipe photo")
+    private static final String PHOTO_HASH = "ee3fe01ef0dd82ec0052f30247d8f1c12946a398965b3af756afc10cb852abd0";
+
+    @TempDir
+    Path imageDir;
+
+    @TempDir
+    Path uploadDir;
+
+    @Autowired
+    private UploadSessionService uploadSessions;
+
+    @Autowired
+    private ReportImageStore imageStore;
+
+    @Autowired
+    private ReportImageStorage storage;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ReportRollupService reportRollupService;
+
+    @Autowired
+    private UploadSessionRepository sessionRepository;
+
+    @Autowired
+    private ReportImageRepository imageRepository;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Autowired
+    private DistrictRepository districtRepository;
+
+    @Autowired
+    private StreetRepository streetRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private ReportDailyRollupRepository rollupRepository;
+
+    private Object previousStaging;
+    private Object previousRoot;
+    private Object previousUploads;
+    private User citizen;
+
+    @BeforeEach
+    void setUp() {
+        previousStaging = ReflectionTestUtils.getField(imageStore, "stagingDirectory");
+        previousRoot = ReflectionTestUtils.getField(storage, "root");
+        previousUploads = ReflectionTestUtils.getField(uploadSessions, "directory");
+        ReflectionTestUtils.setField(imageStore, "stagingDirectory", imageDir.resolve(".tmp").toString());
+        ReflectionTestUtils.setField(storage, "root", imageDir);
+        ReflectionTestUtils.setField(uploadSessions, "directory", uploadDir.toString());
+        ReflectionTestUtils.setField(uploadSessions, "chunkSize", 4);
+
+        City city = cityRepository.save(City.builder().name("Upload City").build());
+        District district = districtRepository.save(District.builder().name("Upload District").city(city).build());
+        Street street = streetRepository.save(Street.builder().name("Upload Street").district(district).build());
+        citizen = userRepository.save(User.builder()
+                .username("upload-user")
+                .phone("0553434343")
+                .password("x")
+                .role("CITIZEN")
+                .street(street)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(imageStore, "stagingDirectory", previousStaging);
+        ReflectionTestUtils.setField(storage, "root", previousRoot);
+        ReflectionTestUtils.setField(uploadSessions, "directory", previousUploads);
+        ReflectionTestUtils.setField(uploadSessions, "chunkSize", 1024 * 1024);
+        sessionRepository.deleteAllInBatch();
+        imageRepository.deleteAllInBatch();
+        rollupRepository.deleteAllInBatch();
+        reportRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        streetRepository.deleteAllInBatch();
+        districtRepository.deleteAllInBatch();
+        cityRepository.deleteAllInBatch();
+        reportRollupService.rebuild(LocalDate.now(), LocalDate.now());
+    }
+
+    @Test
+    void chunksInAnyOrder_areResumedCompletedAndAttachedToAReport() throws IOException {
+        String id = open(PHOTO.length()).getUploadId();
+
+        send(id, 12);
+        send(id, 0);
+        UploadSessionDTO status = uploadSessions.status(citizen.getId(), id);
+        assertEquals(8, status.getReceivedBytes());
+        assertEquals(2, status.getReceived().size());
+        assertEquals(0, status.getReceived().get(0).getStart());
+        assertEquals(3, status.getReceived().get(0).getEnd());
+        assertEquals(12, status.getReceived().get(1).getStart());
+        assertEquals(15, status.getReceived().get(1).getEnd());
+
+        // A retried chunk just overwrites itself
+        send(id, 4);
+        send(id, 4);
+        send(id, 8);
+        UploadSessionDTO completed = uploadSessions.complete(citizen.getId(), id, PHOTO_HASH.toUpperCase());
+        assertTrue(completed.isComplete());
+        assertEquals(PHOTO_HASH, completed.getSha256());
+
+        Long reportId = reportService.createReport(citizen.getId(), "Burst pipe", null, id).getId();
+
+        assertEquals(PHOTO_HASH, reportRepository.findById(reportId).orElseThrow().getImagePath());
+        assertEquals(PHOTO, Files.readString(imageDir.resolve(ReportImageStore.keyOf(PHOTO_HASH))));
+        assertEquals(1, imageRepository.findById(PHOTO_HASH).orElseThrow().getRefCount());
+        assertTrue(sessionRepository.findById(id).isEmpty());
+        try (var leftovers = Files.list(uploadDir)) {
+            assertEquals(0, leftovers.count());
+        }
+    }
+
+    @Test
+    void update_canTakeAnUpload() throws IOException {
+        Long reportId = reportService.createReport(citizen.getId(), "Burst pipe", null).getId();
+        String id = uploadWhole();
+        CreateReportDTO dto = new CreateReportDTO();
+        dto.setText("Burst pipe, photo added");
+        dto.setUploadId(id);
+
+        reportService.updateReportContent(citizen.getId(), citizen.getStreet().getId(), reportId, dto, null);
+
+        assertEquals(PHOTO_HASH, reportRepository.findById(reportId).orElseThrow().getImagePath());
+    }
+
+    @Test
+    void chunksOfTheWrongSizeOrPlace_areRejectedAndNotRecorded() throws IOException {
+        String id = open(PHOTO.length()).getUploadId();
+
+        assertThrows(IllegalArgumentException.class, () -> uploadSessions.writeChunk(
+                citizen.getId(), id, 0, new ByteArrayInputStream("bur".getBytes(StandardCharsets.UTF_8))));
+        assertThrows(IllegalArgumentException.class, () -> uploadSessions.writeChunk(
+                citizen.getId(), id, 0, new ByteArrayInputStream("burst".getBytes(StandardCharsets.UTF_8))));
+        assertThrows(IllegalArgumentException.class, () -> uploadSessions.writeChunk(
+                citizen.getId(), id, 2, new ByteArrayInputStream("rst ".getBytes(StandardCharsets.UTF_8))));
+        assertThrows(IllegalArgumentException.class, () -> uploadSessions.writeChunk(
+                citizen.getId(), id, 16, new ByteArrayInputStream("xxxx".getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals(0, uploadSessions.status(citizen.getId(), id).getReceivedBytes());
+        assertThrows(IllegalArgumentException.class, () -> uploadSessions.complete(citizen.getId(), id, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> reportService.createReport(citizen.getId(), "Burst pipe", null, id));
+    }
+
+    @Test
+    void checksumMismatch_clearsTheChunksForAResend() throws IOException {
+        String id = open(PHOTO.length()).getUploadId();
+        for (int offset = 0; offset < PHOTO.length(); offset += 4) {
+            send(id, offset);
+        }
+
+        assertThrows(IllegalArgumentException.class,
+                () -> uploadSessions.complete(citizen.getId(), id, "00".repeat(32)));
+
+        UploadSessionDTO status = uploadSessions.status(citizen.getId(), id);
+        assertFalse(status.isComplete());
+        assertEquals(0, status.getReceivedBytes());
+    }
+
+    @Test
+    void chunkStillBeingWrittenAtCompletion_doesNotReachTheStoredImage() throws IOException {
+        String id = open(PHOTO.length()).getUploadId();
+        for (int offset = 0; offset < PHOTO.length(); offset += 4) {
+            send(id, offset);
+        }
+
+        // A PUT that passed its checks before complete and writes after it
+        try (FileChannel late = FileChannel.open(uploadDir.resolve(id + ".part"), StandardOpenOption.WRITE)) {
+            uploadSessions.complete(citizen.getId(), id, PHOTO_HASH);
+            late.write(ByteBuffer.wrap("evil".getBytes(StandardCharsets.UTF_8)), 0);
+        }
+        assertThrows(IllegalArgumentException.class, () -> send(id, 0));
+
+        reportService.createReport(citizen.getId(), "Burst pipe", null, id);
+
+        assertEquals(PHOTO, Files.readString(imageDir.resolve(ReportImageStore.keyOf(PHOTO_HASH))));
+    }
+
+    @Test
+    void uploadChangedAfterCompletion_isNotAttached() throws IOException {
+        String id = uploadWhole();
+        Files.writeString(uploadDir.resolve(id + ".done"), "evil pipe photo!");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> reportService.createReport(citizen.getId(), "Burst pipe", null, id));
+        assertFalse(Files.exists(imageDir.resolve(ReportImageStore.keyOf(PHOTO_HASH))));
+    }
+
+    @Test
+    void sessions_arePrivateToTheirOwner() throws IOException {
+        String id = uploadWhole();
+        User other = userRepository.save(User.builder()
+                .username("other-upload-user").phone("0553535353").password("x").role("CITIZEN")
+                .street(citizen.getStreet()).build());
+
+        assertThrows(EntityNotFoundException.class, () -> uploadSessions.status(other.getId(), id));
+        assertThrows(EntityNotFoundException.class,
+                () -> reportService.createReport(other.getId(), "Not mine", null, id));
+        assertThrows(EntityNotFoundException.class, () -> uploadSessions.status(citizen.getId(), "../../etc"));
+    }
+
+    @Test
+    void imageAndUpload_cannotBothBeSent() throws IOException {
+        String id = uploadWhole();
+        MockMultipartFile image = new MockMultipartFile("image", "pipe.jpg", "image/jpeg",
+                PHOTO.getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> reportService.createReport(citizen.getId(), "Burst pipe", image, id));
+    }
+
+    @Test
+    void open_rejectsNonImagesAndOversizedUploads() {
+        CreateUploadSessionDTO text = new CreateUploadSessionDTO();
+        text.setSizeBytes(16L);
+        text.setContentType("text/html");
+        CreateUploadSessionDTO svg = new CreateUploadSessionDTO();
+        svg.setSizeBytes(16L);
+        svg.setContentType("image/svg+xml");
+        CreateUploadSessionDTO huge = new CreateUploadSessionDTO();
+        huge.setSizeBytes(1L << 40);
+        huge.setContentType("image/jpeg");
+
+        assertThrows(IllegalArgumentException.class, () -> uploadSessions.open(citizen.getId(), text));
+        assertThrows(IllegalArgumentException.class, () -> uploadSessions.open(citizen.getId(), svg));
+        assertThrows(IllegalArgumentException.class, () -> uploadSessions.open(citizen.getId(), huge));
+    }
+
+    private UploadSessionDTO open(long size) throws IOException {
+        CreateUploadSessionDTO request = new CreateUploadSessionDTO();
+        request.setSizeBytes(size);
+        request.setContentType("image/jpeg");
+        UploadSessionDTO session = uploadSessions.open(citizen.getId(), request);
+        assertEquals(4, session.getChunkSize());
+        return session;
+    }
+
+    private String uploadWhole() throws IOException {
+        String id = open(PHOTO.length()).getUploadId();
+        for (int offset = 0; offset < PHOTO.length(); offset += 4) {
+            send(id, offset);
+        }
+        uploadSessions.complete(citizen.getId(), id, null);
+        return id;
+    }
+
+    private void send(String id, int offset) throws IOException {
+        byte[] chunk = PHOTO.substring(offset, Math.min(offset + 4, PHOTO.length())).getBytes(StandardCharsets.UTF_8);
+        uploadSessions.writeChunk(citizen.getId(), id, offset, new ByteArrayInputStream(chunk));
+    }
+}
@@ -1,5 +1,8 @@
 package com.anistebbal.starter.services;
 
+import com.anistebbal.starter.config.CalibratedBCryptPasswordEncoder;
+import com.anistebbal.starter.dto.LoginRequestDTO;
+import com.anistebbal.starter.dto.LoginResponseDto;
 import com.anistebbal.starter.dto.RegisterUserDto;
 import com.anistebbal.starter.dto.UserResponseDto;
 import com.anistebbal.starter.entities.Street;
@@ -8,13 +11,18 @@ import com.anistebbal.starter.repositories.StreetRepository;
 import com.anistebbal.starter.repositories.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.mockito.*;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import jakarta.persistence.EntityNotFoundException;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -29,11 +37,20 @@ class UserServiceTest {
     private StreetRepository streetRepository;
 
     @Mock
-    private AuthenticationManager authManager;
+    private LoginWorkerPool loginWorkerPool;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private PasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(4);
 
     @Mock
     private JWTService jwtService;
 
+    @Mock
+    private UserInvalidationBus userInvalidations;
+
     @InjectMocks
     private UserService userService;
     private BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(12);
@@ -130,7 +147,98 @@ class UserServiceTest {
         assertEquals("updatedUser", updatedUser.getUsername());
         assertEquals("0777123456", updatedUser.getPhone());
         assertEquals("ADMIN", updatedUser.getRole());
+        assertEquals(1, existingUser.getSecurityVersion());
+        verify(userInvalidations).publish(new UserInvalidation(userId, List.of("0555000000", "0777123456")));
+    }
+
+    @Test
+    void deleteUser_invalidatesCachedUserState() {
+        User user = User.builder().id(5L).phone("0555999999").build();
+        when(userRepository.findById(5L)).thenReturn(Optional.of(user));
+
+        userService.deleteUser(5L);
+
+        verify(userRepository).delete(user);
+        verify(userInvalidations).publish(new UserInvalidation(5L, List.of("0555999999")));
+    }
+
+    @Test
+    void verify_checksPasswordOnWorkerPoolWithSingleLookup() {
+        User user = User.builder()
+                .id(7L)
+                .username("amina")
+                .phone("0555123456")
+                .password(encoder.encode("secret"))
+                .role("CITIZEN")
+                .build();
+        when(userRepository.findByPhone("0555123456")).thenReturn(Optional.of(user));
+        when(loginWorkerPool.run(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        when(jwtService.generateToken(user)).thenReturn("token");
+
+        LoginRequestDTO request = new LoginRequestDTO();
+        request.setPhone("0555123456");
+        request.setPassword("secret");
+
+        LoginResponseDto response = userService.verify(request);
+
+        assertEquals("token", response.getToken());
+        verify(userRepository, times(1)).findByPhone("0555123456");
+        verify(userRepository, never()).save(any());
+        assertEquals(1, meterRegistry.get("auth.login").timer().count());
+    }
 
+    @Test
+    void verify_rehashesPasswordStoredAtLowerCost() {
+        ReflectionTestUtils.setField(userService, "encoder", new CalibratedBCryptPasswordEncoder(5));
+        User user = loginAs(new BCryptPasswordEncoder(4).encode("secret"));
+
+        assertTrue(user.getPassword().startsWith("$2a$05$"));
+        assertTrue(encoder.matches("secret", user.getPassword()));
+        verify(userRepository).save(user);
+    }
+
+    @Test
+    void verify_keepsPasswordStoredAtHigherCost() {
+        String strongerHash = new BCryptPasswordEncoder(5).encode("secret");
+
+        User user = loginAs(strongerHash);
+
+        assertEquals(strongerHash, user.getPassword());
+        verify(userRepository, never()).save(any());
     }
 
+    @Test
+    void verify_wrongPassword_throwsInvalidCredentials() {
+        User user = User.builder()
+                .phone("0555123456")
+                .password(encoder.encode("secret"))
+                .build();
+        when(userRepository.findByPhone("0555123456")).thenReturn(Optional.of(user));
+        when(loginWorkerPool.run(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+
+        LoginRequestDTO request = new LoginRequestDTO();
+        request.setPhone("0555123456");
+        request.setPassword("wrong");
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> userService.verify(request));
+        assertEquals("Invalid credentials", ex.getMessage());
+        verify(jwtService, never()).generateToken(any());
+    }
+
+    private User loginAs(String storedHash) {
+        User user = User.builder()
+                .id(7L)
+                .phone("0555123456")
+                .password(storedHash)
+                .role("CITIZEN")
+                .build();
+        when(userRepository.findByPhone("0555123456")).thenReturn(Optional.of(user));
+        when(loginWorkerPool.run(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+
+        LoginRequestDTO request = new LoginRequestDTO();
+        request.setPhone("0555123456");
+        request.setPassword("secret");
+        userService.verify(request);
+        return user;
+    }
 }
@@ -0,0 +1,85 @@
+package com.anistebbal.starter.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void get_returnsStoredValueAndCountsHits() {
+        BoundedCache<String, String> cache = new BoundedCache<>(100, Duration.ofMinutes(1), now::get);
+
+        cache.put("a", "1");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void get_dropsEntryPastItsExpiry() {
+        BoundedCache<String, String> cache = new BoundedCache<>(100, Duration.ofMinutes(1), now::get);
+
+        cache.put("a", "1", now.get() + 500);
+        now.addAndGet(499);
+        assertEquals("1", cache.get("a"));
+
+        now.addAndGet(1);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void put_expiryIsCappedByDefaultTtl() {
+        BoundedCache<String, String> cache = new BoundedCache<>(100, Duration.ofMillis(100), now::get);
+
+        cache.put("a", "1", now.get() + 10_000);
+        now.addAndGet(100);
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsedWhenFull() {
+        // 16 segments of one entry each: a second key in the same segment evicts the first
+        BoundedCache<Integer, String> cache = new BoundedCache<>(16, Duration.ofMinutes(1), now::get);
+
+        cache.put(0, "zero");
+        cache.put(16, "sixteen");
+
+        assertNull(cache.get(0));
+        assertEquals("sixteen", cache.get(16));
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void zeroCapacity_neverStores() {
+        BoundedCache<String, String> cache = new BoundedCache<>(0, Duration.ofMinutes(1), now::get);
+
+        cache.put("a", "1");
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void invalidateIf_removesMatchingKeys() {
+        BoundedCache<String, String> cache = new BoundedCache<>(100, Duration.ofMinutes(1), now::get);
+        cache.put("user:1", "a");
+        cache.put("user:2", "b");
+        cache.put("other", "c");
+
+        cache.invalidateIf(key -> key.startsWith("user:"));
+
+        assertEquals(1, cache.size());
+        assertEquals("c", cache.get("other"));
+    }
+}
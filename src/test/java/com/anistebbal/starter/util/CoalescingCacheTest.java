@@ -0,0 +1,46 @@
+package com.anistebbal.starter.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingCacheTest {
+
+    @Test
+    void get_loadsOnceThenServesFromCache() {
+        CoalescingCache<String, String> cache = new CoalescingCache<>(10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v", cache.get("k", () -> "v" + "".repeat(loads.incrementAndGet() - 1)));
+        assertEquals("v", cache.get("k", () -> "other" + loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidateIf_dropsMatchingEntries() {
+        CoalescingCache<Integer, String> cache = new CoalescingCache<>(10, Duration.ofMinutes(1));
+        cache.get(1, () -> "one");
+        cache.get(2, () -> "two");
+
+        cache.invalidateIf(key -> key == 1);
+
+        assertEquals("uno", cache.get(1, () -> "uno"));
+        assertEquals("two", cache.get(2, () -> "dos"));
+    }
+
+    @Test
+    void get_doesNotStoreValueLoadedAcrossAnInvalidation() {
+        CoalescingCache<String, String> cache = new CoalescingCache<>(10, Duration.ofMinutes(1));
+
+        String stale = cache.get("k", () -> {
+            cache.invalidateIf(key -> true); // a change commits while the load is running
+            return "stale";
+        });
+
+        assertEquals("stale", stale);
+        assertEquals("fresh", cache.get("k", () -> "fresh"));
+    }
+}
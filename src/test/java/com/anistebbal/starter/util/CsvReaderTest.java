@@ -0,0 +1,30 @@
+package com.anistebbal.starter.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    void next_readsPlainAndQuotedFields() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(
+                "a,b,c\r\n\"x, y\",\"say \"\"hi\"\"\",\n\n\"multi\nline\",2,3"));
+
+        assertEquals(List.of("a", "b", "c"), reader.next());
+        assertEquals(List.of("x, y", "say \"hi\"", ""), reader.next());
+        assertEquals(List.of("multi\nline", "2", "3"), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void next_unterminatedQuote_throws() {
+        CsvReader reader = new CsvReader(new StringReader("\"open,1\n"));
+
+        assertThrows(IOException.class, reader::next);
+    }
+}
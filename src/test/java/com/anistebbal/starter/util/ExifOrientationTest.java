@@ -0,0 +1,71 @@
+package com.anistebbal.starter.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExifOrientationTest {
+
+    @Test
+    void read_findsTheOrientationInEitherByteOrder() throws IOException {
+        assertEquals(6, ExifOrientation.read(new ByteArrayInputStream(header(ByteOrder.BIG_ENDIAN, 6))));
+        assertEquals(8, ExifOrientation.read(new ByteArrayInputStream(header(ByteOrder.LITTLE_ENDIAN, 8))));
+    }
+
+    @Test
+    void read_defaultsToNormal() throws IOException {
+        assertEquals(ExifOrientation.NORMAL,
+                ExifOrientation.read(new ByteArrayInputStream("\u0089PNG".getBytes(StandardCharsets.ISO_8859_1))));
+        assertEquals(ExifOrientation.NORMAL,
+                ExifOrientation.read(new ByteArrayInputStream(new byte[] { (byte) 0xFF, (byte) 0xD8 })));
+        assertEquals(ExifOrientation.NORMAL,
+                ExifOrientation.read(new ByteArrayInputStream(header(ByteOrder.BIG_ENDIAN, 42))));
+    }
+
+    @Test
+    void apply_turnsTheImageUpright() {
+        // Left half red, right half blue, as a phone held upright would store it for orientation 6
+        BufferedImage sensor = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 200; x++) {
+            for (int y = 0; y < 100; y++) {
+                sensor.setRGB(x, y, x < 100 ? Color.RED.getRGB() : Color.BLUE.getRGB());
+            }
+        }
+
+        BufferedImage clockwise = ExifOrientation.apply(sensor, 6);
+        BufferedImage counterClockwise = ExifOrientation.apply(sensor, 8);
+
+        assertEquals(100, clockwise.getWidth());
+        assertEquals(200, clockwise.getHeight());
+        assertEquals(Color.RED.getRGB(), clockwise.getRGB(50, 10));
+        assertEquals(Color.BLUE.getRGB(), clockwise.getRGB(50, 190));
+        assertEquals(Color.BLUE.getRGB(), counterClockwise.getRGB(50, 10));
+        assertSame(sensor, ExifOrientation.apply(sensor, ExifOrientation.NORMAL));
+    }
+
+    // SOI, an APP1 EXIF segment holding just the orientation, then the start of scan
+    private static byte[] header(ByteOrder order, int orientation) {
+        ByteBuffer tiff = ByteBuffer.allocate(8 + 2 + 12 + 4).order(order);
+        tiff.put(order == ByteOrder.BIG_ENDIAN ? (byte) 'M' : (byte) 'I');
+        tiff.put(order == ByteOrder.BIG_ENDIAN ? (byte) 'M' : (byte) 'I');
+        tiff.putShort((short) 42).putInt(8);
+        tiff.putShort((short) 1);
+        tiff.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        tiff.putInt(0);
+
+        ByteBuffer jpeg = ByteBuffer.allocate(2 + 4 + 6 + tiff.capacity() + 2);
+        jpeg.putShort((short) 0xFFD8);
+        jpeg.putShort((short) 0xFFE1).putShort((short) (2 + 6 + tiff.capacity()));
+        jpeg.put("Exif\0\0".getBytes(StandardCharsets.US_ASCII)).put(tiff.array());
+        jpeg.putShort((short) 0xFFDA);
+        return jpeg.array();
+    }
+}
@@ -0,0 +1,60 @@
+package com.anistebbal.starter.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+    @Test
+    void search_intersectsPostingsNewestFirst() {
+        InvertedIndex<Integer> index = new InvertedIndex<>();
+        index.put(1, List.of("water", "leak"), 10);
+        index.put(2, List.of("water", "pipe"), 20);
+        index.put(3, List.of("water", "leak", "school"), 30);
+
+        InvertedIndex.Hits hits = index.search(List.of("leak", "water"), payload -> true, 10);
+
+        assertEquals(2, hits.total());
+        assertEquals(List.of(3L, 1L), hits.ids());
+    }
+
+    @Test
+    void search_appliesFilterAndLimitButCountsAllMatches() {
+        InvertedIndex<Integer> index = new InvertedIndex<>();
+        for (long id = 1; id <= 5; id++) {
+            index.put(id, List.of("lamp"), (int) id);
+        }
+
+        InvertedIndex.Hits hits = index.search(List.of("lamp"), payload -> payload != 4, 2);
+
+        assertEquals(4, hits.total());
+        assertEquals(List.of(5L, 3L), hits.ids());
+    }
+
+    @Test
+    void put_replacesTermsAndRemoveDropsDocument() {
+        InvertedIndex<Integer> index = new InvertedIndex<>();
+        index.put(1, List.of("pothole"), 0);
+        index.put(1, List.of("lamp"), 0);
+
+        assertEquals(0, index.search(List.of("pothole"), payload -> true, 10).total());
+        assertEquals(List.of(1L), index.search(List.of("lamp"), payload -> true, 10).ids());
+
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        assertEquals(0, index.size());
+        assertEquals(0, index.search(List.of("lamp"), payload -> true, 10).total());
+    }
+
+    @Test
+    void search_unknownTerm_isEmpty() {
+        InvertedIndex<Integer> index = new InvertedIndex<>();
+        index.put(1, List.of("lamp"), 0);
+
+        assertEquals(0, index.search(List.of("lamp", "tree"), payload -> true, 10).total());
+        assertThrows(IllegalArgumentException.class, () -> index.search(List.of(), payload -> true, 10));
+    }
+}
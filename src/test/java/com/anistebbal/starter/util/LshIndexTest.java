@@ -0,0 +1,42 @@
+package com.anistebbal.starter.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LshIndexTest {
+
+    private final MinHash minHash = new MinHash(64, 7);
+
+    @Test
+    void candidates_findSimilarAndSkipUnrelated() {
+        LshIndex index = new LshIndex(16, 4);
+        index.put(1, minHash.signature(Set.of("burst", "pipe", "water", "everywhere", "street")));
+        index.put(2, minHash.signature(Set.of("broken", "streetlight", "corner")));
+
+        Set<Long> candidates = index.candidates(
+                minHash.signature(Set.of("burst", "pipe", "water", "street", "flooded")));
+
+        assertTrue(candidates.contains(1L));
+        assertFalse(candidates.contains(2L));
+    }
+
+    @Test
+    void remove_dropsFromEveryBand() {
+        LshIndex index = new LshIndex(16, 4);
+        long[] signature = minHash.signature(Set.of("pothole"));
+        index.put(1, signature);
+
+        assertTrue(index.remove(1));
+        assertTrue(index.candidates(signature).isEmpty());
+        assertTrue(index.isEmpty());
+        assertFalse(index.remove(1));
+    }
+
+    @Test
+    void put_wrongSignatureSize_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new LshIndex(4, 4).put(1, new long[8]));
+    }
+}
@@ -0,0 +1,38 @@
+package com.anistebbal.starter.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinHashTest {
+
+    private final MinHash minHash = new MinHash(256, 42);
+
+    @Test
+    void similarity_estimatesJaccard() {
+        // Jaccard 6/10
+        long[] a = minHash.signature(Set.of("a", "b", "c", "d", "e", "f", "g", "h"));
+        long[] b = minHash.signature(Set.of("a", "b", "c", "d", "e", "f", "x", "y"));
+
+        assertEquals(0.6, MinHash.similarity(a, b), 0.1);
+        assertEquals(1.0, MinHash.similarity(a, minHash.signature(Set.of("h", "g", "f", "e", "d", "c", "b", "a"))));
+    }
+
+    @Test
+    void similarity_disjointSets_isNearZero() {
+        long[] a = minHash.signature(Set.of("water", "leak", "pipe"));
+        long[] b = minHash.signature(Set.of("broken", "streetlight"));
+
+        assertTrue(MinHash.similarity(a, b) < 0.1);
+    }
+
+    @Test
+    void similarity_differentSizes_throws() {
+        long[] small = new MinHash(8, 1).signature(Set.of("a"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> MinHash.similarity(small, minHash.signature(Set.of("a"))));
+    }
+}
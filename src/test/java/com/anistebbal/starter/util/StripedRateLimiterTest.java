@@ -0,0 +1,56 @@
+package com.anistebbal.starter.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedRateLimiterTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Test
+    void tryAcquire_allowsBurstUpToCapacityThenRejects() {
+        StripedRateLimiter limiter = new StripedRateLimiter(3, 3, 60, TimeUnit.SECONDS, 100, nanos::get);
+
+        assertEquals(0, limiter.tryAcquire("0555123456"));
+        assertEquals(0, limiter.tryAcquire("0555123456"));
+        assertEquals(0, limiter.tryAcquire("0555123456"));
+
+        long wait = limiter.tryAcquire("0555123456");
+        assertEquals(TimeUnit.SECONDS.toNanos(20), wait);
+    }
+
+    @Test
+    void tryAcquire_refillsOverTime() {
+        StripedRateLimiter limiter = new StripedRateLimiter(1, 1, 10, TimeUnit.SECONDS, 100, nanos::get);
+
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+    }
+
+    @Test
+    void tryAcquire_keysAreIndependent() {
+        StripedRateLimiter limiter = new StripedRateLimiter(1, 1, 60, TimeUnit.SECONDS, 100, nanos::get);
+
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("a") > 0);
+        assertEquals(0, limiter.tryAcquire("b"));
+    }
+
+    @Test
+    void idleBucketsAreEvictedWhenFull() {
+        StripedRateLimiter limiter = new StripedRateLimiter(1, 1, 60, TimeUnit.SECONDS, 32, nanos::get);
+
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire("key-" + i);
+        }
+
+        assertTrue(limiter.size() <= 32);
+    }
+}
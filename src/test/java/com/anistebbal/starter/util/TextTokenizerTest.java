@@ -0,0 +1,39 @@
+package com.anistebbal.starter.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextTokenizerTest {
+
+    @Test
+    void tokenize_foldsCaseAndAccentsAndDropsStopWords() {
+        assertEquals(List.of("fuite", "eau", "pres", "ecole"),
+                TextTokenizer.tokenize("Fuite d'eau près de l'École!"));
+        assertEquals(List.of("water", "leak", "street", "12"),
+                TextTokenizer.tokenize("Water-leak on the STREET 12"));
+    }
+
+    @Test
+    void tokenize_normalizesArabicSpellings() {
+        // Harakat, hamza on alef, ta marbuta and the definite article do not change the term
+        assertEquals(TextTokenizer.tokenize("إنارة"), TextTokenizer.tokenize("انارَه"));
+        assertEquals(TextTokenizer.tokenize("الماء"), TextTokenizer.tokenize("ماء"));
+        assertEquals(List.of("تسرب", "ماء"), TextTokenizer.tokenize("تسرّب في الماء"));
+    }
+
+    @Test
+    void tokenize_dropsArabicStopWordsWhateverTheirSpelling() {
+        // Alef maqsura and the hamza of إلى fold away, and the stop words must still match
+        assertEquals(List.of("حفره", "طريق", "مدرسه"), TextTokenizer.tokenize("حفرة على الطريق إلى المدرسة"));
+        assertEquals(List.of("حفره", "طريق", "مدرسه"), TextTokenizer.tokenize("حفرة علي الطريق الي المدرسة"));
+    }
+
+    @Test
+    void tokenize_blank_isEmpty() {
+        assertTrue(TextTokenizer.tokenize("  ").isEmpty());
+        assertTrue(TextTokenizer.tokenize(null).isEmpty());
+    }
+}
@@ -0,0 +1,50 @@
+package com.anistebbal.starter.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UrlSignerTest {
+
+    private static final byte[] SECRET = new byte[32];
+
+    @Test
+    void verify_acceptsItsOwnSignatureUntilItExpires() {
+        Clock clock = Clock.fixed(Instant.ofEpochSecond(1_000), ZoneOffset.UTC);
+        UrlSigner signer = new UrlSigner(SECRET, clock);
+        long expires = signer.expiresAfter(300);
+        String signature = signer.sign("ab/cd/photo", expires);
+
+        assertEquals(1_300, expires);
+        assertTrue(signer.verify("ab/cd/photo", expires, signature));
+
+        UrlSigner later = new UrlSigner(SECRET, Clock.offset(clock, Duration.ofSeconds(301)));
+        assertFalse(later.verify("ab/cd/photo", expires, signature));
+    }
+
+    @Test
+    void verify_rejectsAnyChangedPart() {
+        UrlSigner signer = new UrlSigner(SECRET);
+        long expires = signer.expiresAfter(300);
+        String signature = signer.sign("ab/cd/photo", expires);
+
+        assertFalse(signer.verify("ab/cd/other", expires, signature));
+        assertFalse(signer.verify("ab/cd/photo", expires + 1, signature));
+        assertFalse(signer.verify("ab/cd/photo", expires, null));
+
+        byte[] otherSecret = Arrays.copyOf(SECRET, 32);
+        otherSecret[0] = 1;
+        assertFalse(new UrlSigner(otherSecret).verify("ab/cd/photo", expires, signature));
+    }
+
+    @Test
+    void shortSecret_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new UrlSigner(new byte[16]));
+    }
+}